@@ -39,7 +39,8 @@ CREATE TABLE stock
     product_id INTEGER REFERENCES product (id) ON DELETE CASCADE,
     store_id   INTEGER REFERENCES store (id) ON DELETE CASCADE,
     quantity   INTEGER NOT NULL CHECK (quantity >= 0),
-    min_quantity  INTEGER NOT NULL DEFAULT 0 CHECK (min_quantity >= 0)
+    min_quantity  INTEGER NOT NULL DEFAULT 0 CHECK (min_quantity >= 0),
+    version    BIGINT NOT NULL DEFAULT 0
 );
 
 CREATE TABLE warehouse_stock
@@ -47,7 +48,8 @@ CREATE TABLE warehouse_stock
     id           SERIAL PRIMARY KEY,
     warehouse_id INTEGER REFERENCES warehouse (id) ON DELETE CASCADE,
     product_id   INTEGER REFERENCES product (id) ON DELETE CASCADE,
-    quantity     INTEGER NOT NULL CHECK (quantity >= 0)
+    quantity     INTEGER NOT NULL CHECK (quantity >= 0),
+    version      BIGINT NOT NULL DEFAULT 0
 );
 
 CREATE TABLE orders
@@ -57,6 +59,81 @@ CREATE TABLE orders
     store_id   INTEGER REFERENCES store (id) ON DELETE CASCADE,
     created_by INTEGER                                                                           REFERENCES users (id) ON DELETE SET NULL,
     status     VARCHAR(20) CHECK (status IN ('Нове', 'Підтверджене', 'Відправлене', 'Отримане')) NOT NULL,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    quantity   INTEGER                                                                           NOT NULL CHECK (quantity > 0)
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    -- product_id and quantity are NULL for multi-line orders, see order_line
+    quantity   INTEGER CHECK (quantity > 0),
+    version    BIGINT NOT NULL DEFAULT 0
 );
+
+CREATE TABLE order_line
+(
+    id         SERIAL PRIMARY KEY,
+    order_id   INTEGER NOT NULL REFERENCES orders (id) ON DELETE CASCADE,
+    product_id INTEGER NOT NULL REFERENCES product (id) ON DELETE CASCADE,
+    quantity   INTEGER NOT NULL CHECK (quantity > 0)
+);
+
+-- Keyset pagination: filtered listings seek on (filter, id)
+CREATE INDEX idx_orders_store_id_id ON orders (store_id, id);
+CREATE INDEX idx_orders_status_id ON orders (status, id);
+-- Expiry of stale NEW orders reads the oldest rows of a status in chunks
+CREATE INDEX idx_orders_status_created_at ON orders (status, created_at);
+-- also covers the critical-stock filter (quantity <= min_quantity) without heap lookups
+CREATE INDEX idx_stock_store_id_id ON stock (store_id, id) INCLUDE (quantity, min_quantity);
+CREATE INDEX idx_stock_product_id_id ON stock (product_id, id);
+CREATE INDEX idx_warehouse_stock_warehouse_id_id ON warehouse_stock (warehouse_id, id);
+CREATE INDEX idx_warehouse_stock_product_id_id ON warehouse_stock (product_id, id);
+-- Set-based stock updates for an order read its lines from the index alone
+CREATE INDEX idx_order_line_order_id_product_id ON order_line (order_id, product_id) INCLUDE (quantity);
+
+-- Conditional stock decrement targets exactly one row per (product, store)
+CREATE UNIQUE INDEX uq_stock_product_id_store_id ON stock (product_id, store_id);
+
+-- Hibernate draws ids in blocks of 50 (pooled optimizer) so inserts can be batched
+ALTER SEQUENCE product_id_seq INCREMENT BY 50;
+ALTER SEQUENCE stock_id_seq INCREMENT BY 50;
+ALTER SEQUENCE warehouse_stock_id_seq INCREMENT BY 50;
+ALTER SEQUENCE orders_id_seq INCREMENT BY 50;
+ALTER SEQUENCE order_line_id_seq INCREMENT BY 50;
+
+-- Chain-wide critical stock listing: only rows at or below their minimum are indexed
+CREATE INDEX idx_stock_critical_id ON stock (id) WHERE quantity <= min_quantity;
+
+-- Idempotency-Key responses: id is SHA-256(user, key), fingerprint SHA-256(operation, request body)
+CREATE TABLE idempotency_record
+(
+    id          VARCHAR(64) PRIMARY KEY,
+    fingerprint VARCHAR(64) NOT NULL,
+    status_code INTEGER,
+    body        TEXT,
+    created_at  TIMESTAMP   NOT NULL
+);
+
+CREATE INDEX idx_idempotency_record_created_at ON idempotency_record (created_at);
+
+-- Append-only stock ledger; product and store are not foreign keys so the history outlives them
+CREATE TABLE stock_movement
+(
+    id         SERIAL PRIMARY KEY,
+    product_id INTEGER     NOT NULL,
+    store_id   INTEGER     NOT NULL,
+    delta      INTEGER     NOT NULL,
+    reason     VARCHAR(20) NOT NULL,
+    created_at TIMESTAMP   NOT NULL DEFAULT localtimestamp
+);
+
+-- Replay after a snapshot is a range read per store, answered from the index
+CREATE INDEX idx_stock_movement_store_id_created_at ON stock_movement (store_id, created_at) INCLUDE (product_id, delta);
+
+CREATE TABLE stock_snapshot
+(
+    id         SERIAL PRIMARY KEY,
+    store_id   INTEGER   NOT NULL,
+    taken_at   TIMESTAMP NOT NULL,
+    product_id INTEGER   NOT NULL,
+    quantity   INTEGER   NOT NULL,
+    UNIQUE (store_id, taken_at, product_id)
+);
+
+ALTER SEQUENCE stock_movement_id_seq INCREMENT BY 50;
+ALTER SEQUENCE stock_snapshot_id_seq INCREMENT BY 50;
@@ -0,0 +1,139 @@
+package org.example.lvstore.benchmark;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.example.lvstore.LvStoreApplication;
+import org.example.lvstore.entity.Product;
+import org.example.lvstore.entity.Stock;
+import org.example.lvstore.entity.Store;
+import org.example.lvstore.entity.User;
+import org.example.lvstore.repository.ProductRepository;
+import org.example.lvstore.repository.StockRepository;
+import org.example.lvstore.repository.StoreRepository;
+import org.example.lvstore.repository.UserRepository;
+import org.example.lvstore.service.enums.Role;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The whole application on a random port, backed by one of:
+ * <ul>
+ *     <li>{@code h2} — in-memory H2,</li>
+ *     <li>{@code postgres} — an embedded PostgreSQL server started for the run,</li>
+ *     <li>{@code local} — whatever {@code spring.datasource.*} points at, e.g. a local Postgres.</li>
+ * </ul>
+ * The schema is recreated by Hibernate on start.
+ */
+public class BenchmarkApplication implements Closeable {
+
+    public static final int QUANTITY = 1_000_000_000;
+
+    private final EmbeddedPostgres postgres;
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkApplication(EmbeddedPostgres postgres, ConfigurableApplicationContext context) {
+        this.postgres = postgres;
+        this.context = context;
+    }
+
+    public static BenchmarkApplication start(String backend) throws IOException {
+        return start(backend, Map.of());
+    }
+
+    public static BenchmarkApplication start(String backend, Map<String, String> overrides) throws IOException {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.docker.compose.enabled", "false");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create");
+        properties.put("spring.security.oauth2.client.registration.google.client-id", "benchmark");
+        properties.put("spring.security.oauth2.client.registration.google.client-secret", "benchmark");
+        properties.put("logging.level.root", "WARN");
+        properties.put("lvstore.jwt.key-store",
+                Files.createTempDirectory("lvstore-benchmark").resolve("jwt-keys.json").toString());
+
+        EmbeddedPostgres postgres = null;
+        switch (backend) {
+            case "postgres" -> {
+                postgres = EmbeddedPostgres.start();
+                properties.put("spring.datasource.url", postgres.getJdbcUrl("postgres", "postgres"));
+                properties.put("spring.datasource.username", "postgres");
+                properties.put("spring.datasource.password", "postgres");
+            }
+            case "h2" -> {
+                properties.put("spring.datasource.url", "jdbc:h2:mem:lvstore;DB_CLOSE_DELAY=-1");
+                properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+            }
+            case "local" -> {
+            }
+            default -> throw new IllegalArgumentException(String.format("Unknown backend %s", backend));
+        }
+        properties.putAll(overrides);
+
+        // command-line arguments so these win over application.properties
+        String[] args = properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+        return new BenchmarkApplication(postgres, SpringApplication.run(LvStoreApplication.class, args));
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public int port() {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    public User createUser(String username, Role role) {
+        return bean(UserRepository.class).save(User.builder()
+                .username(username)
+                .email(username + "@lvstore.org")
+                .role(role)
+                .build());
+    }
+
+    public Store createStore(String name, User admin) {
+        return bean(StoreRepository.class).save(Store.builder().name(name).admin(admin).build());
+    }
+
+    /**
+     * Creates {@code count} products stocked in {@code store}; every {@code criticalEvery}th one
+     * (except the first) sits below its minimum quantity, the rest are effectively unlimited.
+     */
+    public List<Product> createStockedProducts(Store store, int count, int criticalEvery) {
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            products.add(Product.builder().name("Product " + i).category("Category " + i % 50).barcode("482" + i).price(10.0).build());
+        }
+        products = bean(ProductRepository.class).saveAll(products);
+
+        List<Stock> stocks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean critical = i > 0 && i % criticalEvery == 0;
+            stocks.add(Stock.builder()
+                    .product(products.get(i))
+                    .store(store)
+                    .quantity(critical ? 1 : QUANTITY)
+                    .minQuantity(5)
+                    .build());
+        }
+        bean(StockRepository.class).saveAll(stocks);
+        return products;
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.lvstore.benchmark;
+
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.example.lvstore.config.security.CustomJwtAuthenticationConverter;
+import org.example.lvstore.config.security.JwtConfiguration;
+import org.example.lvstore.config.security.JwtKeyStore;
+import org.example.lvstore.entity.User;
+import org.example.lvstore.service.JwtService;
+import org.example.lvstore.service.enums.Role;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and validation as wired by {@link JwtConfiguration}, without the Spring context.
+ * {@code algorithm} picks the signing key type. {@code decode} repeats one token and so hits the verified-token cache; {@code decodeUncached} checks the signature every time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtBenchmark {
+
+    @Param({"ES256", "RS256"})
+    public String algorithm;
+
+    private JwtService jwtService;
+    private JwtDecoder jwtDecoder;
+    private JwtDecoder uncachedDecoder;
+    private CustomJwtAuthenticationConverter authenticationConverter;
+    private User user;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Path keys = Files.createTempFile("jwt-keys", ".json");
+        Files.delete(keys);
+        JwtKeyStore keyStore = new JwtKeyStore(keys.toString(), algorithm, Duration.ofDays(30), Duration.ofDays(7));
+        JwtConfiguration configuration = new JwtConfiguration();
+        jwtService = new JwtService(configuration.jwtEncoder(keyStore), keyStore);
+        jwtDecoder = configuration.jwtDecoder(keyStore, 10_000);
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JwtKeyStore.ALGORITHMS, keyStore));
+        uncachedDecoder = new NimbusJwtDecoder(jwtProcessor);
+        authenticationConverter = new CustomJwtAuthenticationConverter(configuration.jwtAuthenticationConverter());
+        user = User.builder().id(1L).username("benchmark").email("benchmark@lvstore.org").role(Role.SELLER).build();
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String encode() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public Jwt decode() {
+        return jwtDecoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt decodeUncached() {
+        return uncachedDecoder.decode(token);
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken authenticate() {
+        return authenticationConverter.convert(jwtDecoder.decode(token));
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.lvstore.benchmark;
+
+import org.example.lvstore.entity.Product;
+import org.example.lvstore.entity.Store;
+import org.example.lvstore.entity.User;
+import org.example.lvstore.service.enums.Role;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+
+/**
+ * Boots the whole application once per trial against an in-memory H2 database or an embedded
+ * PostgreSQL server, and seeds one store holding {@link #PRODUCTS} products, every
+ * {@link #CRITICAL_EVERY}th of them below its minimum quantity.
+ */
+@State(Scope.Benchmark)
+public class LvStoreState {
+
+    public static final int PRODUCTS = 2_000;
+    public static final int CRITICAL_EVERY = 20;
+
+    @Param({"h2", "postgres"})
+    public String backend;
+
+    public User admin;
+    public Store store;
+    public Product product;
+
+    private BenchmarkApplication application;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        application = BenchmarkApplication.start(backend);
+        admin = application.createUser("benchmark", Role.STORE_ADMINISTRATOR);
+        store = application.createStore("Benchmark store", admin);
+        product = application.createStockedProducts(store, PRODUCTS, CRITICAL_EVERY).get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        application.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return application.bean(type);
+    }
+}
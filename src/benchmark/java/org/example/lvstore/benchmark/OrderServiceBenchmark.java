@@ -0,0 +1,50 @@
+package org.example.lvstore.benchmark;
+
+import org.example.lvstore.entity.Order;
+import org.example.lvstore.payload.order.CreateOrderRequest;
+import org.example.lvstore.payload.order.OrderView;
+import org.example.lvstore.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OrderServiceBenchmark {
+
+    @State(Scope.Thread)
+    public static class ConfirmedOrder {
+
+        Long id;
+
+        @Setup(Level.Invocation)
+        public void confirm(LvStoreState state) {
+            OrderService orderService = state.bean(OrderService.class);
+            id = orderService.createOrder(newOrder(state)).getId();
+            orderService.confirmOrder(id);
+        }
+    }
+
+    @Benchmark
+    public Order createOrder(LvStoreState state) {
+        return state.bean(OrderService.class).createOrder(newOrder(state));
+    }
+
+    @Benchmark
+    public OrderView shipOrder(LvStoreState state, ConfirmedOrder order) {
+        return state.bean(OrderService.class).shipOrder(order.id);
+    }
+
+    private static CreateOrderRequest newOrder(LvStoreState state) {
+        return new CreateOrderRequest("NEW", 1, LocalDateTime.now(),
+                state.product.getId(), state.store.getId(), state.admin.getId(), null);
+    }
+}
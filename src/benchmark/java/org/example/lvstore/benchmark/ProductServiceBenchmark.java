@@ -0,0 +1,27 @@
+package org.example.lvstore.benchmark;
+
+import org.example.lvstore.entity.Product;
+import org.example.lvstore.service.ProductService;
+import org.example.lvstore.service.cache.ProductCatalogCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductServiceBenchmark {
+
+    @Benchmark
+    public Product getProductByBarcodeCached(LvStoreState state) {
+        return state.bean(ProductService.class).getProductByBarcode(state.product.getBarcode());
+    }
+
+    @Benchmark
+    public Product getProductByBarcodeUncached(LvStoreState state) {
+        state.bean(ProductCatalogCache.class).evict(state.product.getId());
+        return state.bean(ProductService.class).getProductByBarcode(state.product.getBarcode());
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.lvstore.benchmark;
+
+import org.example.lvstore.payload.page.CursorPage;
+import org.example.lvstore.payload.stock.StockView;
+import org.example.lvstore.service.StockService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StockServiceBenchmark {
+
+    @Benchmark
+    public boolean decreaseStock(LvStoreState state) {
+        return state.bean(StockService.class).decreaseStock(state.product.getId(), state.store.getId(), 1);
+    }
+
+    @Benchmark
+    public CursorPage<StockView> getCriticalStocksByStoreId(LvStoreState state) {
+        return state.bean(StockService.class).getCriticalStocksByStoreId(state.store.getId(), null, CursorPage.MAX_LIMIT);
+    }
+}
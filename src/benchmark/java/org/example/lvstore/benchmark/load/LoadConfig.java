@@ -0,0 +1,103 @@
+package org.example.lvstore.benchmark.load;
+
+import org.example.lvstore.service.enums.Role;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Load-test settings, given as {@code --key=value} arguments:
+ * <pre>
+ * --backend=postgres        h2, postgres (embedded) or local (spring.datasource.* from the environment)
+ * --users=50                concurrent virtual users, each with its own connection
+ * --virtual-threads=false   handle requests on virtual threads (spring.threads.virtual.enabled)
+ * --mix=seller:6,admin:3,manager:1
+ * --warmup=15s --duration=60s --think=0ms
+ * --products=5000           stocked products in the seeded store
+ * --output=target/load-test/result.json
+ * --baseline=load-baseline.json --tolerance=0.2
+ * --save-baseline=load-baseline.json
+ * </pre>
+ */
+public record LoadConfig(
+        String backend,
+        int users,
+        boolean virtualThreads,
+        Map<Role, Integer> mix,
+        Duration warmup,
+        Duration duration,
+        Duration think,
+        int products,
+        Path output,
+        Path baseline,
+        double tolerance,
+        Path saveBaseline
+) {
+
+    public static LoadConfig parse(String[] args) {
+        return parse(args, Map.of());
+    }
+
+    /**
+     * @param defaults values used for keys missing from {@code args}
+     */
+    public static LoadConfig parse(String[] args, Map<String, String> defaults) {
+        Map<String, String> values = new HashMap<>(defaults);
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException(String.format("Expected --key=value, got %s", arg));
+            }
+            values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return new LoadConfig(
+                values.getOrDefault("backend", "postgres"),
+                Integer.parseInt(values.getOrDefault("users", "50")),
+                Boolean.parseBoolean(values.getOrDefault("virtual-threads", "false")),
+                mix(values.getOrDefault("mix", "seller:6,admin:3,manager:1")),
+                duration(values.getOrDefault("warmup", "15s")),
+                duration(values.getOrDefault("duration", "60s")),
+                duration(values.getOrDefault("think", "0ms")),
+                Integer.parseInt(values.getOrDefault("products", "5000")),
+                Path.of(values.getOrDefault("output", "target/load-test/result.json")),
+                values.containsKey("baseline") ? Path.of(values.get("baseline")) : null,
+                Double.parseDouble(values.getOrDefault("tolerance", "0.2")),
+                values.containsKey("save-baseline") ? Path.of(values.get("save-baseline")) : null
+        );
+    }
+
+    public LoadConfig withVirtualThreads(boolean virtualThreads, Path output) {
+        return new LoadConfig(backend, users, virtualThreads, mix, warmup, duration, think, products, output,
+                baseline, tolerance, saveBaseline);
+    }
+
+    private static Map<Role, Integer> mix(String value) {
+        Map<Role, Integer> mix = new EnumMap<>(Role.class);
+        for (String part : value.split(",")) {
+            String[] weight = part.split(":");
+            Role role = switch (weight[0].trim()) {
+                case "seller" -> Role.SELLER;
+                case "admin" -> Role.STORE_ADMINISTRATOR;
+                case "manager" -> Role.WAREHOUSE_MANAGER;
+                default -> throw new IllegalArgumentException(String.format("Unknown role %s", weight[0]));
+            };
+            mix.put(role, Integer.parseInt(weight[1].trim()));
+        }
+        return mix;
+    }
+
+    private static Duration duration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.parse(value);
+    }
+}
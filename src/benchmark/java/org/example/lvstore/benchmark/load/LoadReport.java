@@ -0,0 +1,61 @@
+package org.example.lvstore.benchmark.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of one load-test run, written as JSON so later runs can be compared against it.
+ * Latencies are in milliseconds, throughput in requests per second.
+ */
+public record LoadReport(
+        String backend,
+        int users,
+        boolean virtualThreads,
+        long durationSeconds,
+        double throughput,
+        double errorRate,
+        Map<String, OperationStats> operations
+) {
+
+    public record OperationStats(
+            long requests,
+            long errors,
+            double throughput,
+            double p50,
+            double p90,
+            double p99,
+            double p999,
+            double max
+    ) {
+
+        public double errorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+    }
+
+    /**
+     * Lists operations that got slower at p99, lost throughput by more than {@code tolerance}
+     * (a fraction, e.g. 0.2), or whose error rate rose by more than a percentage point.
+     */
+    public List<String> regressionsAgainst(LoadReport baseline, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        baseline.operations().forEach((name, before) -> {
+            OperationStats now = operations.get(name);
+            if (now == null) {
+                regressions.add(String.format("%s: not exercised in this run", name));
+                return;
+            }
+            if (now.p99() > before.p99() * (1 + tolerance)) {
+                regressions.add(String.format("%s: p99 %.2f ms -> %.2f ms", name, before.p99(), now.p99()));
+            }
+            if (now.throughput() < before.throughput() * (1 - tolerance)) {
+                regressions.add(String.format("%s: throughput %.1f/s -> %.1f/s", name, before.throughput(), now.throughput()));
+            }
+            if (now.errorRate() > before.errorRate() + 0.01) {
+                regressions.add(String.format("%s: error rate %.2f%% -> %.2f%%", name, before.errorRate() * 100, now.errorRate() * 100));
+            }
+        });
+        return regressions;
+    }
+}
@@ -0,0 +1,336 @@
+package org.example.lvstore.benchmark.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.example.lvstore.benchmark.BenchmarkApplication;
+import org.example.lvstore.entity.Product;
+import org.example.lvstore.entity.Store;
+import org.example.lvstore.entity.User;
+import org.example.lvstore.service.JwtService;
+import org.example.lvstore.service.enums.Role;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives the HTTP API of a freshly started application with a mix of sellers placing orders, store
+ * administrators confirming them and checking stock, and warehouse managers shipping confirmed orders.
+ * Each virtual user sends requests back to back (plus optional think time) with a JWT minted by
+ * {@link JwtService}; order creation and shipping carry an {@code Idempotency-Key} like a POS client's. Run with
+ * <pre>mvn -Pbenchmark test-compile exec:exec@load-test -Dload.args="--duration=60s --users=50"</pre>
+ * See {@link LoadConfig} for the options and {@link ThreadModelComparison} for platform vs virtual threads. Exits with status 1 when a baseline is given and the run regressed.
+ */
+public class LoadTest {
+
+    private static final int CRITICAL_EVERY = 20;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().findAndRegisterModules();
+
+    enum Operation {
+        CREATE_ORDER, CONFIRM_ORDER, SHIP_ORDER, CRITICAL_STOCKS, PRODUCT_BY_BARCODE
+    }
+
+    private final LoadConfig config;
+    // one HTTP/1.1 connection per virtual user, so --users is also the number of open connections
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final Map<Operation, Recorder> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final ConcurrentLinkedQueue<Long> newOrders = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Long> confirmedOrders = new ConcurrentLinkedQueue<>();
+
+    private String baseUrl;
+    private Store store;
+    private List<Product> products;
+    private List<Product> orderable;
+
+    private LoadTest(LoadConfig config) {
+        this.config = config;
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new Recorder(3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config = LoadConfig.parse(args);
+        System.exit(publish(config, execute(config)) ? 0 : 1);
+    }
+
+    /**
+     * Starts the application, puts it under load and stops it again.
+     */
+    static LoadReport execute(LoadConfig config) throws IOException, InterruptedException {
+        Map<String, String> overrides = Map.of("spring.threads.virtual.enabled", String.valueOf(config.virtualThreads()));
+        try (BenchmarkApplication application = BenchmarkApplication.start(config.backend(), overrides)) {
+            return new LoadTest(config).run(application);
+        }
+    }
+
+    private LoadReport run(BenchmarkApplication application) throws InterruptedException {
+        baseUrl = "http://localhost:" + application.port();
+        User admin = application.createUser("load-admin", Role.STORE_ADMINISTRATOR);
+        store = application.createStore("Load test store", admin);
+        products = application.createStockedProducts(store, config.products(), CRITICAL_EVERY);
+        // ordering critical products would make shipments fail for lack of stock
+        orderable = new ArrayList<>();
+        for (int i = 0; i < products.size(); i++) {
+            if (i == 0 || i % CRITICAL_EVERY != 0) {
+                orderable.add(products.get(i));
+            }
+        }
+
+        JwtService jwtService = application.bean(JwtService.class);
+        List<VirtualUser> users = new ArrayList<>(config.users());
+        for (Role role : roles()) {
+            User user = application.createUser("load-" + role.name().toLowerCase() + "-" + users.size(), role);
+            users.add(new VirtualUser(user, jwtService.generateToken(user)));
+        }
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        long start = System.nanoTime();
+        long warmupEnd = start + config.warmup().toNanos();
+        long end = warmupEnd + config.duration().toNanos();
+        users.forEach(user -> executor.submit(() -> user.run(end)));
+
+        TimeUnit.NANOSECONDS.sleep(Math.max(0, warmupEnd - System.nanoTime()));
+        latencies.values().forEach(Recorder::reset);
+        errors.values().forEach(LongAdder::reset);
+
+        executor.shutdown();
+        executor.awaitTermination(config.duration().toSeconds() + 60, TimeUnit.SECONDS);
+        return report((System.nanoTime() - warmupEnd) / 1e9);
+    }
+
+    private List<Role> roles() {
+        int total = config.mix().values().stream().mapToInt(Integer::intValue).sum();
+        List<Role> roles = new ArrayList<>(config.users());
+        config.mix().forEach((role, weight) -> {
+            for (int i = 0; i < Math.max(1, Math.round((float) config.users() * weight / total)); i++) {
+                roles.add(role);
+            }
+        });
+        return roles;
+    }
+
+    private class VirtualUser {
+
+        private final User user;
+        private final String token;
+
+        VirtualUser(User user, String token) {
+            this.user = user;
+            this.token = token;
+        }
+
+        void run(long end) {
+            while (System.nanoTime() < end) {
+                step();
+                if (!config.think().isZero()) {
+                    try {
+                        Thread.sleep(config.think().toMillis());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void step() {
+            int dice = ThreadLocalRandom.current().nextInt(100);
+            switch (user.getRole()) {
+                case SELLER -> createOrder();
+                case STORE_ADMINISTRATOR -> {
+                    if (dice < 40) {
+                        confirmOrder();
+                    } else if (dice < 80) {
+                        productByBarcode();
+                    } else {
+                        criticalStocks();
+                    }
+                }
+                case WAREHOUSE_MANAGER -> {
+                    if (dice < 70) {
+                        shipOrder();
+                    } else {
+                        criticalStocks();
+                    }
+                }
+            }
+        }
+
+        private void createOrder() {
+            Product product = orderable.get(ThreadLocalRandom.current().nextInt(orderable.size()));
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("status", "NEW");
+            body.put("quantity", 1);
+            body.put("createdAt", LocalDateTime.now().toString());
+            body.put("productId", product.getId());
+            body.put("storeId", store.getId());
+            body.put("creatorId", user.getId());
+            HttpResponse<String> response = send(Operation.CREATE_ORDER, request("/orders")
+                    .header("Content-Type", "application/json")
+                    .header("Idempotency-Key", UUID.randomUUID().toString())
+                    .POST(HttpRequest.BodyPublishers.ofString(json(body))));
+            if (response != null) {
+                try {
+                    newOrders.add(OBJECT_MAPPER.readTree(response.body()).get("id").asLong());
+                } catch (IOException e) {
+                    errors.get(Operation.CREATE_ORDER).increment();
+                }
+            }
+        }
+
+        private void confirmOrder() {
+            Long id = newOrders.poll();
+            if (id == null) {
+                productByBarcode();
+                return;
+            }
+            if (send(Operation.CONFIRM_ORDER, request("/orders/" + id + "/confirm").PUT(HttpRequest.BodyPublishers.noBody())) != null) {
+                confirmedOrders.add(id);
+            }
+        }
+
+        private void shipOrder() {
+            Long id = confirmedOrders.poll();
+            if (id == null) {
+                criticalStocks();
+                return;
+            }
+            send(Operation.SHIP_ORDER, request("/orders/" + id + "/ship")
+                    .header("Idempotency-Key", UUID.randomUUID().toString())
+                    .PUT(HttpRequest.BodyPublishers.noBody()));
+        }
+
+        private void criticalStocks() {
+            send(Operation.CRITICAL_STOCKS, request("/stocks/critical?storeId=" + store.getId() + "&limit=50").GET());
+        }
+
+        private void productByBarcode() {
+            Product product = products.get(ThreadLocalRandom.current().nextInt(products.size()));
+            send(Operation.PRODUCT_BY_BARCODE, request("/products?barcode=" + product.getBarcode()).GET());
+        }
+
+        private HttpRequest.Builder request(String path) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Authorization", "Bearer " + token);
+        }
+
+        /**
+         * @return the response if it succeeded, {@code null} otherwise
+         */
+        private HttpResponse<String> send(Operation operation, HttpRequest.Builder request) {
+            long start = System.nanoTime();
+            try {
+                HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+                latencies.get(operation).recordValue((System.nanoTime() - start) / 1_000);
+                if (response.statusCode() >= 400) {
+                    errors.get(operation).increment();
+                    return null;
+                }
+                return response;
+            } catch (IOException e) {
+                latencies.get(operation).recordValue((System.nanoTime() - start) / 1_000);
+                errors.get(operation).increment();
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    private LoadReport report(double seconds) {
+        Map<String, LoadReport.OperationStats> operations = new LinkedHashMap<>();
+        long requests = 0;
+        long failed = 0;
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation).getIntervalHistogram();
+            long count = histogram.getTotalCount();
+            if (count == 0) {
+                continue;
+            }
+            long operationErrors = errors.get(operation).sum();
+            operations.put(operation.name(), new LoadReport.OperationStats(
+                    count,
+                    operationErrors,
+                    count / seconds,
+                    histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(90) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0));
+            requests += count;
+            failed += operationErrors;
+        }
+        return new LoadReport(config.backend(), config.users(), config.virtualThreads(), Math.round(seconds), requests / seconds,
+                requests == 0 ? 0 : (double) failed / requests, operations);
+    }
+
+    /**
+     * Prints and saves the report and compares it with the baseline, if any.
+     *
+     * @return {@code false} if the run regressed against the baseline
+     */
+    static boolean publish(LoadConfig config, LoadReport report) throws IOException {
+        System.out.printf("%n%-20s %10s %8s %10s %9s %9s %9s %9s %9s%n",
+                "operation", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        report.operations().forEach((name, stats) -> System.out.printf("%-20s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name, stats.requests(), stats.errors(), stats.throughput(), stats.p50(), stats.p90(), stats.p99(), stats.p999(), stats.max()));
+        System.out.printf("total: %.1f req/s, %.2f%% errors%n", report.throughput(), report.errorRate() * 100);
+
+        ObjectMapper writer = OBJECT_MAPPER.copy().enable(SerializationFeature.INDENT_OUTPUT);
+        Files.createDirectories(config.output().toAbsolutePath().getParent());
+        writer.writeValue(config.output().toFile(), report);
+        if (config.saveBaseline() != null) {
+            writer.writeValue(config.saveBaseline().toFile(), report);
+            System.out.printf("baseline saved to %s%n", config.saveBaseline());
+        }
+        if (config.baseline() == null) {
+            return true;
+        }
+
+        LoadReport baseline = OBJECT_MAPPER.readValue(config.baseline().toFile(), LoadReport.class);
+        List<String> regressions = report.regressionsAgainst(baseline, config.tolerance());
+        if (regressions.isEmpty()) {
+            System.out.printf("no regressions against %s%n", config.baseline());
+            return true;
+        }
+        System.out.printf("regressions against %s:%n", config.baseline());
+        regressions.forEach(regression -> System.out.println("  " + regression));
+        return false;
+    }
+
+    private String json(Object body) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(body);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
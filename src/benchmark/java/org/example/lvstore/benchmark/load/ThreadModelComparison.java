@@ -0,0 +1,43 @@
+package org.example.lvstore.benchmark.load;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Runs the load test twice at the same concurrency, first with requests handled on Tomcat's platform
+ * thread pool and then on virtual threads, and prints both side by side. Run with
+ * <pre>mvn -Pbenchmark test-compile exec:exec@thread-comparison -Dload.args="--duration=60s"</pre>
+ * Takes the {@link LoadConfig} options with 2000 users by default; the two reports are written next to
+ * {@code --output} as {@code platform.json} and {@code virtual.json}. Baselines are not used.
+ */
+public class ThreadModelComparison {
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config = LoadConfig.parse(args, Map.of("users", "2000"));
+        Path directory = config.output().toAbsolutePath().getParent();
+
+        LoadConfig platformConfig = config.withVirtualThreads(false, directory.resolve("platform.json"));
+        LoadReport platform = LoadTest.execute(platformConfig);
+        LoadTest.publish(platformConfig, platform);
+
+        LoadConfig virtualConfig = config.withVirtualThreads(true, directory.resolve("virtual.json"));
+        LoadReport virtual = LoadTest.execute(virtualConfig);
+        LoadTest.publish(virtualConfig, virtual);
+
+        System.out.printf("%n%d concurrent connections, %s backend%n", config.users(), config.backend());
+        System.out.printf("%-30s %12s %12s %9s%n", "", "platform", "virtual", "change");
+        row("throughput req/s", platform.throughput(), virtual.throughput());
+        row("error rate %", platform.errorRate() * 100, virtual.errorRate() * 100);
+        platform.operations().forEach((name, before) -> {
+            LoadReport.OperationStats after = virtual.operations().get(name);
+            if (after != null) {
+                row(name + " p99 ms", before.p99(), after.p99());
+            }
+        });
+    }
+
+    private static void row(String name, double platform, double virtual) {
+        String change = platform == 0 ? "" : String.format("%+.1f%%", (virtual - platform) / platform * 100);
+        System.out.printf("%-30s %12.2f %12.2f %9s%n", name, platform, virtual, change);
+    }
+}
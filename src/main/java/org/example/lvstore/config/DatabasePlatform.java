@@ -0,0 +1,38 @@
+package org.example.lvstore.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+/**
+ * Tells whether the application database is PostgreSQL. Scheduled jobs built on PostgreSQL-only
+ * features ({@code SKIP LOCKED}, advisory locks, {@code pg_stat_activity}) check it before each run,
+ * so they stay idle on the in-memory H2 database the application tests start with.
+ */
+@Component
+@RequiredArgsConstructor
+public class DatabasePlatform {
+
+    private static final String POSTGRESQL = "PostgreSQL";
+
+    private final DataSource dataSource;
+    private volatile Boolean postgres;
+
+    public boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            try {
+                result = POSTGRESQL.equals(JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+            } catch (MetaDataAccessException e) {
+                // database unreachable: skip this run and ask again on the next one
+                return false;
+            }
+            postgres = result;
+        }
+        return result;
+    }
+}
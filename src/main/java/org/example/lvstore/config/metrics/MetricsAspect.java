@@ -0,0 +1,92 @@
+package org.example.lvstore.config.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Times every public service method ({@value #SERVICE_TIMER}) and repository call
+ * ({@value #REPOSITORY_TIMER}), tagged by class and method. Repository calls also record how many
+ * rows they returned or modified ({@value #REPOSITORY_ROWS}); streams are not counted.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class MetricsAspect {
+
+    public static final String SERVICE_TIMER = "lvstore.service";
+    public static final String REPOSITORY_TIMER = "lvstore.repository";
+    public static final String REPOSITORY_ROWS = "lvstore.repository.rows";
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("within(org.example.lvstore.service..*) && @within(org.springframework.stereotype.Service) && execution(public * *(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        String type = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        return time(SERVICE_TIMER, type, joinPoint);
+    }
+
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        String type = repositoryName(joinPoint.getThis());
+        Object result = time(REPOSITORY_TIMER, type, joinPoint);
+
+        Long rows = rowCount(result);
+        if (rows != null) {
+            DistributionSummary.builder(REPOSITORY_ROWS)
+                    .tag("class", type)
+                    .tag("method", joinPoint.getSignature().getName())
+                    .register(meterRegistry)
+                    .record(rows);
+        }
+        return result;
+    }
+
+    private Object time(String name, String type, ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(name)
+                    .tag("class", type)
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String repositoryName(Object proxy) {
+        for (Class<?> type : AopProxyUtils.proxiedUserInterfaces(proxy)) {
+            if (type.getPackageName().startsWith("org.example.lvstore")) {
+                return type.getSimpleName();
+            }
+        }
+        return proxy.getClass().getSimpleName();
+    }
+
+    private static Long rowCount(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return (long) collection.size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1L : 0L;
+        }
+        if (result instanceof Integer modified) {
+            return modified.longValue();
+        }
+        return null;
+    }
+}
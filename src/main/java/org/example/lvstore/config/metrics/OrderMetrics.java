@@ -0,0 +1,38 @@
+package org.example.lvstore.config.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.example.lvstore.service.enums.OrderStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts order status transitions as {@value #TRANSITIONS}, tagged with the source and target status,
+ * and orders cancelled by the expiry job as {@value #EXPIRED}.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderMetrics {
+
+    public static final String TRANSITIONS = "lvstore.orders.transitions";
+    public static final String EXPIRED = "lvstore.orders.expired";
+
+    private final MeterRegistry meterRegistry;
+
+    public void transition(OrderStatus from, OrderStatus to) {
+        transition(from, to, 1);
+    }
+
+    public void transition(OrderStatus from, OrderStatus to, long count) {
+        Counter.builder(TRANSITIONS)
+                .tag("from", from.name())
+                .tag("to", to.name())
+                .register(meterRegistry)
+                .increment(count);
+    }
+
+    public void expired(long count) {
+        meterRegistry.counter(EXPIRED).increment(count);
+        transition(OrderStatus.NEW, OrderStatus.CANCELLED, count);
+    }
+}
@@ -1,5 +1,7 @@
 package org.example.lvstore.config.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
@@ -15,9 +17,13 @@ import java.util.Collection;
 public class CustomJwtAuthenticationConverter {
 
     private final JwtGrantedAuthoritiesConverter jwtGrantedAuthoritiesConverter;
+    // keyed by identity: CachingJwtDecoder returns the same Jwt for a repeated token, and entries go with it
+    private final Cache<Jwt, Collection<GrantedAuthority>> authorities = Caffeine.newBuilder()
+            .weakKeys()
+            .maximumSize(10_000)
+            .build();
 
     public AbstractAuthenticationToken convert(Jwt jwt) {
-        Collection<GrantedAuthority> authorities = jwtGrantedAuthoritiesConverter.convert(jwt);
-        return new JwtAuthenticationToken(jwt, authorities);
+        return new JwtAuthenticationToken(jwt, authorities.get(jwt, jwtGrantedAuthoritiesConverter::convert));
     }
 }
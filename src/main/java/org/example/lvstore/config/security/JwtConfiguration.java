@@ -1,44 +1,34 @@
 package org.example.lvstore.config.security;
 
-import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.RSAKey;
-import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
 import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 
-import java.security.KeyPair;
-import java.security.KeyPairGenerator;
-import java.security.NoSuchAlgorithmException;
-import java.security.interfaces.RSAPublicKey;
-
 @Configuration
 @RequiredArgsConstructor
 public class JwtConfiguration {
 
     @Bean
-    public JwtEncoder jwtEncoder(KeyPair keyPair) {
-        RSAKey jwk = new RSAKey.Builder((RSAPublicKey) keyPair.getPublic()).privateKey(keyPair.getPrivate()).build();
-        ImmutableJWKSet<SecurityContext> jwkSet = new ImmutableJWKSet<>(new JWKSet(jwk));
-        return new NimbusJwtEncoder(jwkSet);
-    }
-
-    @Bean
-    public KeyPair keyPair() throws NoSuchAlgorithmException {
-        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
-        keyPairGenerator.initialize(2048);
-        return keyPairGenerator.genKeyPair();
+    public JwtEncoder jwtEncoder(JwtKeyStore jwtKeyStore) {
+        return new NimbusJwtEncoder(jwtKeyStore);
     }
 
     @Bean
-    public JwtDecoder jwtDecoder(KeyPair keyPair) {
-        return NimbusJwtDecoder.withPublicKey((RSAPublicKey) keyPair.getPublic()).build();
+    public CachingJwtDecoder jwtDecoder(JwtKeyStore jwtKeyStore, @Value("${lvstore.jwt-cache.maximum-size:10000}") long maximumSize) {
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JwtKeyStore.ALGORITHMS, jwtKeyStore));
+        // expiry and the other claims are checked by NimbusJwtDecoder's validators
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        return new CachingJwtDecoder(new NimbusJwtDecoder(jwtProcessor), maximumSize);
     }
 
     @Bean
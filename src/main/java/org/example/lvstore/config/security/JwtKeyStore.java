@@ -0,0 +1,227 @@
+package org.example.lvstore.config.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * JWT signing keys kept in a JWK set file that every node points at (a shared volume), so tokens
+ * survive restarts and any node verifies any token. Each key carries a {@code kid} and its creation
+ * time; the newest one signs. Once it is older than {@code rotation}, the next signer adds a new key
+ * and drops keys that can no longer have valid tokens ({@code rotation + retention} old).
+ * A token with an unknown {@code kid} makes this node re-read the file if it changed since it was last
+ * read; concurrent requests wait for that re-read rather than failing against the old key set.
+ * <p>
+ * {@code lvstore.jwt.key-store} has no default: it must be an absolute path, outside the application
+ * directory, since the file holds private keys.
+ */
+@Component
+public class JwtKeyStore implements JWKSource<SecurityContext> {
+
+    public static final Set<JWSAlgorithm> ALGORITHMS = Set.of(JWSAlgorithm.ES256, JWSAlgorithm.RS256);
+
+    private final Path path;
+    private final JWSAlgorithm algorithm;
+    private final Duration rotation;
+    private final Duration retention;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile JWKSet keys;
+    private volatile FileTime loadedVersion;
+
+    public JwtKeyStore(@Value("${lvstore.jwt.key-store:}") String location,
+                       @Value("${lvstore.jwt.algorithm:ES256}") String algorithm,
+                       @Value("${lvstore.jwt.rotation:30d}") Duration rotation,
+                       @Value("${lvstore.jwt.retention:7d}") Duration retention) {
+        if (location.isBlank()) {
+            throw new IllegalStateException("lvstore.jwt.key-store (JWT_KEY_STORE) must be set to the JWT key file");
+        }
+        this.path = Path.of(location);
+        if (!path.isAbsolute()) {
+            throw new IllegalArgumentException(String.format("JWT key store %s must be an absolute path", location));
+        }
+        this.algorithm = JWSAlgorithm.parse(algorithm);
+        if (!ALGORITHMS.contains(this.algorithm)) {
+            throw new IllegalArgumentException(String.format("Unsupported JWT algorithm %s", algorithm));
+        }
+        this.rotation = rotation;
+        this.retention = retention;
+        this.keys = update();
+    }
+
+    /**
+     * @return the key new tokens are signed with, rotating it first if it is due
+     */
+    public JWK signingKey() {
+        JWK key = newest(keys);
+        if (key != null && !isDue(key)) {
+            return key;
+        }
+        lock.lock();
+        try {
+            key = newest(keys);
+            if (key == null || isDue(key)) {
+                keys = update();
+                key = newest(keys);
+            }
+            return key;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector selector, SecurityContext context) {
+        List<JWK> matches = selector.select(keys);
+        if (!matches.isEmpty()) {
+            return matches;
+        }
+        lock.lock();
+        try {
+            FileTime version = lastModified();
+            if (!Objects.equals(version, loadedVersion)) {
+                keys = read();
+                loadedVersion = version;
+            }
+            return selector.select(keys);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Re-reads the file under an exclusive lock and, unless another node already did, adds a fresh key
+     * and drops expired ones.
+     */
+    private JWKSet update() {
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            try (FileChannel channel = FileChannel.open(parent.resolve(path.getFileName() + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                FileTime version = lastModified();
+                JWKSet current = read();
+                JWK newest = newest(current);
+                if (newest != null && !isDue(newest)) {
+                    loadedVersion = version;
+                    return current;
+                }
+                List<JWK> retained = new ArrayList<>();
+                retained.add(generate());
+                Instant cutoff = Instant.now().minus(rotation).minus(retention);
+                for (JWK key : current.getKeys()) {
+                    if (key.getIssueTime() != null && key.getIssueTime().toInstant().isAfter(cutoff)) {
+                        retained.add(key);
+                    }
+                }
+                JWKSet updated = new JWKSet(retained);
+                write(updated);
+                loadedVersion = lastModified();
+                return updated;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Cannot update JWT key store %s", path), e);
+        }
+    }
+
+    /**
+     * @return when the file was last replaced, or {@code null} if there is none yet
+     */
+    private FileTime lastModified() {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Cannot read JWT key store %s", path), e);
+        }
+    }
+
+    private JWKSet read() {
+        if (!Files.exists(path)) {
+            return new JWKSet();
+        }
+        try {
+            return JWKSet.parse(Files.readString(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Cannot read JWT key store %s", path), e);
+        } catch (ParseException e) {
+            throw new IllegalStateException(String.format("JWT key store %s is not a JWK set", path), e);
+        }
+    }
+
+    private void write(JWKSet keys) throws IOException {
+        Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            // not a POSIX file system, keep the default permissions
+        }
+        Files.writeString(temp, keys.toString(false), StandardCharsets.UTF_8);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private JWK generate() {
+        try {
+            Date now = new Date();
+            if (JWSAlgorithm.ES256.equals(algorithm)) {
+                return new ECKeyGenerator(Curve.P_256)
+                        .keyUse(KeyUse.SIGNATURE).algorithm(algorithm).issueTime(now).keyIDFromThumbprint(true)
+                        .generate();
+            }
+            return new RSAKeyGenerator(2048)
+                    .keyUse(KeyUse.SIGNATURE).algorithm(algorithm).issueTime(now).keyIDFromThumbprint(true)
+                    .generate();
+        } catch (JOSEException e) {
+            throw new IllegalStateException(String.format("Cannot generate %s key", algorithm), e);
+        }
+    }
+
+    /**
+     * @return the newest key of the configured algorithm, or {@code null}
+     */
+    private JWK newest(JWKSet keys) {
+        return keys.getKeys().stream()
+                .filter(key -> algorithm.equals(key.getAlgorithm()) && key.getIssueTime() != null && key.isPrivate())
+                .max(Comparator.comparing(JWK::getIssueTime))
+                .orElse(null);
+    }
+
+    private boolean isDue(JWK key) {
+        return key.getIssueTime().toInstant().plus(rotation).isBefore(Instant.now());
+    }
+}
@@ -1,6 +1,7 @@
 package org.example.lvstore.config.security;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -27,21 +28,43 @@ public class SecurityConfiguration {
     private final CustomOAuth2UserService customOAuth2UserService;
     private final OAuth2AuthenticationSuccessHandler oAuth2AuthenticationSuccessHandler;
 
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http.authorizeHttpRequests(c -> c
                 .requestMatchers("/login").permitAll()
+                .requestMatchers("/actuator/health").permitAll() // перевірка стану
+                .requestMatchers(request -> request.getLocalPort() == managementPort).permitAll() // порт моніторингу, лише внутрішня мережа
+                .requestMatchers("/actuator/**").denyAll() // метрики не віддаються на публічному порту
+                // Пакетні переходи: ті самі ролі, що й для одного замовлення; стоять перед /orders/{id}/...,
+                // бо "batch" підходить під {id}
+                .requestMatchers(HttpMethod.PUT, "/orders/batch/confirm").hasAuthority(STORE_ADMINISTRATOR.name())
+                .requestMatchers(HttpMethod.PUT, "/orders/batch/ship").hasAuthority(WAREHOUSE_MANAGER.name())
+                .requestMatchers(HttpMethod.PUT, "/orders/batch/cancel").hasAnyAuthority(WAREHOUSE_MANAGER.name(), STORE_ADMINISTRATOR.name())
+                .requestMatchers(HttpMethod.PUT, "/orders/batch/**").denyAll()
+
                 // Продавець
                 .requestMatchers(HttpMethod.POST, "/orders").hasAnyAuthority(SELLER.name(), STORE_ADMINISTRATOR.name()) // створення замовлення
+                .requestMatchers(HttpMethod.POST, "/orders/batch").hasAnyAuthority(SELLER.name(), STORE_ADMINISTRATOR.name()) // пакетне створення замовлень
+                .requestMatchers(HttpMethod.GET, "/products/search").hasAnyAuthority(SELLER.name(), STORE_ADMINISTRATOR.name(), WAREHOUSE_MANAGER.name()) // пошук товарів
                 .requestMatchers(HttpMethod.PUT, "/orders/{id}/deliver").hasAnyAuthority(SELLER.name(), STORE_ADMINISTRATOR.name()) // підтвердження отримання
 
                 // Менеджер складу
                 .requestMatchers(HttpMethod.PUT, "/orders/{id}/cancel").hasAnyAuthority(WAREHOUSE_MANAGER.name(), STORE_ADMINISTRATOR.name())
                 .requestMatchers(HttpMethod.PUT, "/orders/{id}/ship").hasAuthority(WAREHOUSE_MANAGER.name())
+                .requestMatchers(HttpMethod.PUT, "/orders/waves/next/ship").hasAuthority(WAREHOUSE_MANAGER.name()) // відвантаження хвилі
 
                 // Адміністратор магазину
                 .requestMatchers(HttpMethod.PUT, "/orders/{id}/confirm").hasAuthority(STORE_ADMINISTRATOR.name())
 
+                // Вивантаження замовлень для звірки
+                .requestMatchers(HttpMethod.GET, "/orders/export").hasAnyAuthority(STORE_ADMINISTRATOR.name(), WAREHOUSE_MANAGER.name())
+
+                // Планування хвиль відвантаження
+                .requestMatchers(HttpMethod.GET, "/orders/waves/**").hasAnyAuthority(WAREHOUSE_MANAGER.name(), STORE_ADMINISTRATOR.name())
+
                 // Усі користувачі, які мають доступ до перегляду замовлень
                 .requestMatchers(HttpMethod.GET, "/orders", "/orders/**").hasAnyAuthority(
                         SELLER.name(), STORE_ADMINISTRATOR.name(), WAREHOUSE_MANAGER.name()
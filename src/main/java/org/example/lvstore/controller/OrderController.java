@@ -1,16 +1,30 @@
 package org.example.lvstore.controller;
 
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.example.lvstore.entity.Order;
+import org.example.lvstore.payload.idempotency.IdempotentResponse;
 import org.example.lvstore.payload.order.CreateOrderRequest;
+import org.example.lvstore.payload.order.OrderLineView;
+import org.example.lvstore.payload.order.OrderView;
+import org.example.lvstore.payload.order.OrderWave;
 import org.example.lvstore.payload.order.UpdateOrderRequest;
+import org.example.lvstore.payload.page.CursorPage;
+import org.example.lvstore.service.IdempotencyService;
 import org.example.lvstore.service.OrderService;
+import org.example.lvstore.service.WaveService;
+import org.example.lvstore.service.retry.ConcurrencyRetry;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequiredArgsConstructor
@@ -18,31 +32,62 @@ import java.util.List;
 @SecurityRequirement(name = "bearerAuth")
 public class OrderController {
 
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
+    private final WaveService waveService;
+    private final ConcurrencyRetry concurrencyRetry;
 
     @PostMapping
-    public ResponseEntity<Order> createOrder(@RequestBody CreateOrderRequest createOrderRequest) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(orderService.createOrder(createOrderRequest));
+    public ResponseEntity<?> createOrder(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                         @RequestBody CreateOrderRequest createOrderRequest) {
+        return idempotent(idempotencyKey, "POST /orders", createOrderRequest, HttpStatus.CREATED,
+                () -> orderService.createOrder(createOrderRequest));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<?> createOrders(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                          @RequestBody List<CreateOrderRequest> requests) {
+        return idempotent(idempotencyKey, "POST /orders/batch", requests, HttpStatus.OK,
+                () -> orderService.createOrders(requests));
     }
 
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders() {
-        return ResponseEntity.ok(orderService.getAllOrders());
+    public ResponseEntity<CursorPage<OrderView>> getOrders(@RequestParam(required = false) Long after,
+                                                       @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(orderService.getOrders(after, limit));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportOrders(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        orderService.exportOrders(response.getOutputStream());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Order> getOrderById(@PathVariable Long id) {
-        return ResponseEntity.ok(orderService.getOrderById(id));
+    public ResponseEntity<OrderView> getOrderById(@PathVariable Long id) {
+        return ResponseEntity.ok(orderService.getOrderViewById(id));
+    }
+
+    @GetMapping("/{id}/lines")
+    public ResponseEntity<List<OrderLineView>> getOrderLines(@PathVariable Long id) {
+        return ResponseEntity.ok(orderService.getOrderLines(id));
     }
 
     @GetMapping(params = "storeId")
-    public ResponseEntity<List<Order>> getOrdersByStoreId(@RequestParam Long storeId) {
-        return ResponseEntity.ok(orderService.getOrdersByStoreId(storeId));
+    public ResponseEntity<CursorPage<OrderView>> getOrdersByStoreId(@RequestParam Long storeId,
+                                                                @RequestParam(required = false) Long after,
+                                                                @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(orderService.getOrdersByStoreId(storeId, after, limit));
     }
 
     @GetMapping(params = "status")
-    public ResponseEntity<List<Order>> getOrdersByStatus(@RequestParam String status) {
-        return ResponseEntity.ok(orderService.getOrdersByStatus(status));
+    public ResponseEntity<CursorPage<OrderView>> getOrdersByStatus(@RequestParam String status,
+                                                               @RequestParam(required = false) Long after,
+                                                               @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(orderService.getOrdersByStatus(status, after, limit));
     }
 
     @PutMapping
@@ -50,6 +95,10 @@ public class OrderController {
         try {
             Order updatedOrder = orderService.updateOrder(updateOrderRequest);
             return ResponseEntity.ok(updatedOrder);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(orderService.getOrderById(updateOrderRequest.id()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -62,22 +111,82 @@ public class OrderController {
     }
 
     @PutMapping("/{id}/confirm")
-    public ResponseEntity<Order> confirmOrder(@PathVariable Long id) {
-        return ResponseEntity.ok(orderService.confirmOrder(id));
+    public ResponseEntity<?> confirmOrder(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                          @PathVariable Long id) {
+        return idempotent(idempotencyKey, "PUT /orders/" + id + "/confirm", null, HttpStatus.OK,
+                () -> orderService.confirmOrder(id));
     }
 
     @PutMapping("/{id}/cancel")
-    public ResponseEntity<Order> cancelOrder(@PathVariable Long id) {
-        return ResponseEntity.ok(orderService.cancelOrder(id));
+    public ResponseEntity<?> cancelOrder(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                         @PathVariable Long id) {
+        return idempotent(idempotencyKey, "PUT /orders/" + id + "/cancel", null, HttpStatus.OK,
+                () -> orderService.cancelOrder(id));
     }
 
     @PutMapping("/{id}/ship")
-    public ResponseEntity<Order> shipOrder(@PathVariable Long id) {
-        return ResponseEntity.ok(orderService.shipOrder(id));
+    public ResponseEntity<?> shipOrder(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                       @PathVariable Long id) {
+        return idempotent(idempotencyKey, "PUT /orders/" + id + "/ship", null, HttpStatus.OK,
+                () -> orderService.shipOrder(id));
+    }
+
+    /**
+     * Confirms, ships or cancels many orders at once, see {@link OrderService#transitionOrders}.
+     */
+    @PutMapping("/batch/{transition}")
+    public ResponseEntity<?> transitionOrders(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                              @PathVariable String transition,
+                                              @RequestBody List<Long> ids) {
+        return idempotent(idempotencyKey, "PUT /orders/batch/" + transition, ids, HttpStatus.OK,
+                () -> orderService.transitionOrders(transition, ids));
+    }
+
+    @GetMapping("/waves/next")
+    public ResponseEntity<OrderWave> planWave(@RequestParam(required = false) Long storeId,
+                                              @RequestParam(required = false) Long after,
+                                              @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(waveService.planWave(storeId, after, limit));
+    }
+
+    @PutMapping("/waves/next/ship")
+    public ResponseEntity<?> shipWave(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                      @RequestParam(required = false) Long storeId,
+                                      @RequestParam(required = false) Long after,
+                                      @RequestParam(required = false) Integer limit) {
+        return idempotent(idempotencyKey, "PUT /orders/waves/next/ship?storeId=" + storeId + "&after=" + after + "&limit=" + limit,
+                null, HttpStatus.OK, () -> waveService.shipWave(storeId, after, limit));
     }
 
     @PutMapping("/{id}/deliver")
-    public ResponseEntity<Order> deliverOrder(@PathVariable Long id) {
-        return ResponseEntity.ok(orderService.markAsDelivered(id));
+    public ResponseEntity<?> deliverOrder(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                          @PathVariable Long id) {
+        return idempotent(idempotencyKey, "PUT /orders/" + id + "/deliver", null, HttpStatus.OK,
+                () -> orderService.markAsDelivered(id));
+    }
+
+    /**
+     * Without a key the action simply runs. With one, a retry gets the stored response of the first
+     * request, marked with {@value #IDEMPOTENT_REPLAYED}; an invalid or reused key is a bad request.
+     * An action that loses a race for the rows it changes is re-run a few times in a fresh transaction;
+     * if it keeps losing, that is a conflict the client may retry later.
+     */
+    private ResponseEntity<?> idempotent(String idempotencyKey, String operation, Object request, HttpStatus status,
+                                         Supplier<?> action) {
+        try {
+            if (idempotencyKey == null) {
+                return ResponseEntity.status(status).body(concurrencyRetry.execute(action));
+            }
+            IdempotentResponse response = concurrencyRetry.execute(
+                    () -> idempotencyService.execute(idempotencyKey, operation, request, status.value(), action));
+            return ResponseEntity.status(response.status())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(IDEMPOTENT_REPLAYED, String.valueOf(response.replayed()))
+                    .body(response.body());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (ConcurrencyFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
     }
 }
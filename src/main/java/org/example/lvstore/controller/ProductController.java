@@ -3,13 +3,21 @@ package org.example.lvstore.controller;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.RequiredArgsConstructor;
 import org.example.lvstore.entity.Product;
+import org.example.lvstore.payload.page.CursorPage;
 import org.example.lvstore.payload.product.CreateProductRequest;
+import org.example.lvstore.payload.product.ProductCacheStats;
+import org.example.lvstore.payload.product.ProductImportReport;
 import org.example.lvstore.payload.product.UpdateProductRequest;
+import org.example.lvstore.service.ProductImportService;
 import org.example.lvstore.service.ProductService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -20,6 +28,7 @@ import java.util.NoSuchElementException;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductImportService productImportService;
 
     @PostMapping
     public ResponseEntity<Product> createProduct(@RequestBody CreateProductRequest request) {
@@ -30,9 +39,20 @@ public class ProductController {
         }
     }
 
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ProductImportReport> importProducts(@RequestParam("file") MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            ProductImportReport report = productImportService.importProducts(in);
+            return report.failedAtLine() == null ? ResponseEntity.ok(report) : ResponseEntity.badRequest().body(report);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        return ResponseEntity.ok(productService.getAllProducts());
+    public ResponseEntity<CursorPage<Product>> getProducts(@RequestParam(required = false) Long after,
+                                                           @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(productService.getProducts(after, limit));
     }
 
     @GetMapping("/{id}")
@@ -53,6 +73,17 @@ public class ProductController {
         }
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<List<Product>> searchProducts(@RequestParam String q,
+                                                        @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(productService.searchProducts(q, limit));
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ProductCacheStats> getCacheStats() {
+        return ResponseEntity.ok(productService.getCacheStats());
+    }
+
     @PutMapping
     public ResponseEntity<Product> updateProduct(@RequestBody UpdateProductRequest request) {
         try {
@@ -1,15 +1,25 @@
 package org.example.lvstore.controller;
 
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.example.lvstore.entity.Stock;
+import org.example.lvstore.payload.page.CursorPage;
 import org.example.lvstore.payload.stock.CreateStockRequest;
+import org.example.lvstore.payload.stock.StockQuantity;
+import org.example.lvstore.payload.stock.StockView;
 import org.example.lvstore.payload.stock.UpdateStockRequest;
+import org.example.lvstore.service.StockHistoryService;
 import org.example.lvstore.service.StockService;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -19,6 +29,7 @@ import java.util.List;
 public class StockController {
 
     private final StockService stockService;
+    private final StockHistoryService stockHistoryService;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -27,19 +38,28 @@ public class StockController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Stock>> getAllStocks() {
-        return ResponseEntity.ok(stockService.getAllStocks());
+    public ResponseEntity<CursorPage<StockView>> getStocks(@RequestParam(required = false) Long after,
+                                                       @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(stockService.getStocks(after, limit));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportStocks(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        stockService.exportStocks(response.getOutputStream());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Stock> getStockById(@PathVariable Long id) {
-        return ResponseEntity.ok(stockService.getStockById(id));
+    public ResponseEntity<StockView> getStockById(@PathVariable Long id) {
+        return ResponseEntity.ok(stockService.getStockViewById(id));
     }
 
     @PutMapping
     public ResponseEntity<Stock> updateStock(@RequestBody UpdateStockRequest request) {
         try {
             return ResponseEntity.ok(stockService.updateStock(request));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(stockService.getStockById(request.id()));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -52,18 +72,36 @@ public class StockController {
     }
 
     @GetMapping(params = "storeId")
-    public ResponseEntity<List<Stock>> getStocksByStore(@RequestParam Long storeId) {
-        return ResponseEntity.ok(stockService.getStocksByStoreId(storeId));
+    public ResponseEntity<CursorPage<StockView>> getStocksByStore(@RequestParam Long storeId,
+                                                              @RequestParam(required = false) Long after,
+                                                              @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(stockService.getStocksByStoreId(storeId, after, limit));
     }
 
     @GetMapping(params = "productId")
-    public ResponseEntity<List<Stock>> getStocksByProduct(@RequestParam Long productId) {
-        return ResponseEntity.ok(stockService.getStocksByProductId(productId));
+    public ResponseEntity<CursorPage<StockView>> getStocksByProduct(@RequestParam Long productId,
+                                                                @RequestParam(required = false) Long after,
+                                                                @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(stockService.getStocksByProductId(productId, after, limit));
     }
 
     @GetMapping("/critical")
-    public ResponseEntity<List<Stock>> getCriticalStocks(@RequestParam Long storeId) {
-        return ResponseEntity.ok(stockService.getCriticalStocksByStoreId(storeId));
+    public ResponseEntity<CursorPage<StockView>> getCriticalStocks(@RequestParam(required = false) Long after,
+                                                               @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(stockService.getCriticalStocks(after, limit));
+    }
+
+    @GetMapping(value = "/critical", params = "storeId")
+    public ResponseEntity<CursorPage<StockView>> getCriticalStocksByStore(@RequestParam Long storeId,
+                                                                      @RequestParam(required = false) Long after,
+                                                                      @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(stockService.getCriticalStocksByStoreId(storeId, after, limit));
+    }
+
+    @GetMapping(value = "/history", params = {"storeId", "at"})
+    public ResponseEntity<List<StockQuantity>> getStockAsOf(@RequestParam Long storeId,
+                                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(stockHistoryService.getStockAsOf(storeId, at));
     }
 
 }
@@ -3,6 +3,7 @@ package org.example.lvstore.controller;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.RequiredArgsConstructor;
 import org.example.lvstore.entity.Store;
+import org.example.lvstore.payload.page.CursorPage;
 import org.example.lvstore.payload.store.CreateStoreRequest;
 import org.example.lvstore.payload.store.UpdateStoreRequest;
 import org.example.lvstore.service.StoreService;
@@ -10,8 +11,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/stores")
@@ -27,8 +26,9 @@ public class StoreController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Store>> getAllStores() {
-        return ResponseEntity.ok(storeService.getAllStores());
+    public ResponseEntity<CursorPage<Store>> getStores(@RequestParam(required = false) Long after,
+                                                       @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(storeService.getStores(after, limit));
     }
 
     @GetMapping("/{id}")
@@ -3,6 +3,7 @@ package org.example.lvstore.controller;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.RequiredArgsConstructor;
 import org.example.lvstore.entity.User;
+import org.example.lvstore.payload.page.CursorPage;
 import org.example.lvstore.payload.user.CreateUserRequest;
 import org.example.lvstore.payload.user.UpdateUserRequest;
 import org.example.lvstore.service.UserService;
@@ -10,8 +11,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/users")
@@ -27,8 +26,9 @@ public class UserController {
     }
 
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers() {
-        return ResponseEntity.ok(userService.getAllUsers());
+    public ResponseEntity<CursorPage<User>> getUsers(@RequestParam(required = false) Long after,
+                                                     @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(userService.getUsers(after, limit));
     }
 
     @GetMapping("/{id}")
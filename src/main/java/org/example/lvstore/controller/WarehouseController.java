@@ -3,6 +3,7 @@ package org.example.lvstore.controller;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.RequiredArgsConstructor;
 import org.example.lvstore.entity.Warehouse;
+import org.example.lvstore.payload.page.CursorPage;
 import org.example.lvstore.payload.warehouse.CreateWarehouseRequest;
 import org.example.lvstore.payload.warehouse.UpdateWarehouseRequest;
 import org.example.lvstore.service.WarehouseService;
@@ -10,8 +11,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/warehouses")
@@ -27,8 +26,9 @@ public class WarehouseController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Warehouse>> getAllWarehouses() {
-        return ResponseEntity.ok(warehouseService.getAllWarehouses());
+    public ResponseEntity<CursorPage<Warehouse>> getWarehouses(@RequestParam(required = false) Long after,
+                                                               @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(warehouseService.getWarehouses(after, limit));
     }
 
     @GetMapping("/{id}")
@@ -1,14 +1,21 @@
 package org.example.lvstore.controller;
 
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.example.lvstore.entity.WarehouseStock;
+import org.example.lvstore.payload.page.CursorPage;
 import org.example.lvstore.payload.warehousestock.CreateWarehouseStockRequest;
 import org.example.lvstore.payload.warehousestock.UpdateWarehouseStockRequest;
+import org.example.lvstore.payload.warehousestock.WarehouseStockView;
 import org.example.lvstore.service.WarehouseStockService;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/warehouse-stocks")
@@ -19,13 +26,20 @@ public class WarehouseStockController {
     private final WarehouseStockService warehouseStockService;
 
     @GetMapping
-    public List<WarehouseStock> getAllWarehouseStocks() {
-        return warehouseStockService.getAllWarehouseStocks();
+    public CursorPage<WarehouseStockView> getWarehouseStocks(@RequestParam(required = false) Long after,
+                                                         @RequestParam(required = false) Integer limit) {
+        return warehouseStockService.getWarehouseStocks(after, limit);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportWarehouseStocks(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        warehouseStockService.exportWarehouseStocks(response.getOutputStream());
     }
 
     @GetMapping("/{id}")
-    public WarehouseStock getWarehouseStockById(@PathVariable Long id) {
-        return warehouseStockService.getWarehouseStockById(id);
+    public WarehouseStockView getWarehouseStockById(@PathVariable Long id) {
+        return warehouseStockService.getWarehouseStockViewById(id);
     }
 
     @PostMapping
@@ -34,8 +48,12 @@ public class WarehouseStockController {
     }
 
     @PutMapping
-    public WarehouseStock updateWarehouseStock(@RequestBody UpdateWarehouseStockRequest request) {
-        return warehouseStockService.updateWarehouseStock(request);
+    public ResponseEntity<WarehouseStock> updateWarehouseStock(@RequestBody UpdateWarehouseStockRequest request) {
+        try {
+            return ResponseEntity.ok(warehouseStockService.updateWarehouseStock(request));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(warehouseStockService.getWarehouseStockById(request.id()));
+        }
     }
 
     @DeleteMapping("/{id}")
@@ -44,12 +62,16 @@ public class WarehouseStockController {
     }
 
     @GetMapping(params = "warehouseId")
-    public List<WarehouseStock> getStocksByWarehouse(@RequestParam Long warehouseId) {
-        return warehouseStockService.getWarehouseStocksByWarehouseId(warehouseId);
+    public CursorPage<WarehouseStockView> getStocksByWarehouse(@RequestParam Long warehouseId,
+                                                           @RequestParam(required = false) Long after,
+                                                           @RequestParam(required = false) Integer limit) {
+        return warehouseStockService.getWarehouseStocksByWarehouseId(warehouseId, after, limit);
     }
 
     @GetMapping(params = "productId")
-    public List<WarehouseStock> getStocksByProduct(@RequestParam Long productId) {
-        return warehouseStockService.getWarehouseStocksByProductId(productId);
+    public CursorPage<WarehouseStockView> getStocksByProduct(@RequestParam Long productId,
+                                                         @RequestParam(required = false) Long after,
+                                                         @RequestParam(required = false) Integer limit) {
+        return warehouseStockService.getWarehouseStocksByProductId(productId, after, limit);
     }
 }
@@ -0,0 +1,43 @@
+package org.example.lvstore.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Response stored for an {@code Idempotency-Key}. The id is a SHA-256 of the user and the key, the
+ * fingerprint a SHA-256 of the operation and request body, so a reused key can be told apart from a retry.
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord implements Persistable<String> {
+
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    @Column(length = 64, nullable = false)
+    private String fingerprint;
+
+    private Integer statusCode;
+
+    @Column(columnDefinition = "TEXT")
+    private String body;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * A record is saved once, before the operation runs and without a response, so the insert is
+     * what detects a concurrent duplicate.
+     */
+    @Override
+    public boolean isNew() {
+        return statusCode == null;
+    }
+}
@@ -2,6 +2,7 @@ package org.example.lvstore.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.example.lvstore.service.enums.OrderStatus;
 
 import java.time.LocalDateTime;
@@ -12,10 +13,20 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@NamedEntityGraph(name = Order.DETAIL_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode("product"),
+                @NamedAttributeNode(value = "store", subgraph = "store"),
+                @NamedAttributeNode("createdBy")
+        },
+        subgraphs = @NamedSubgraph(name = "store", attributeNodes = @NamedAttributeNode("admin")))
 public class Order {
 
+    public static final String DETAIL_GRAPH = "Order.detail";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_id_seq")
+    @SequenceGenerator(name = "orders_id_seq", sequenceName = "orders_id_seq", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -36,4 +47,9 @@ public class Order {
     @ManyToOne
     @JoinColumn(name = "created_by")
     private User createdBy;
+
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
 }
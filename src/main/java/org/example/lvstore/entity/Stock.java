@@ -2,16 +2,26 @@ package org.example.lvstore.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@NamedEntityGraph(name = Stock.DETAIL_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode("product"),
+                @NamedAttributeNode(value = "store", subgraph = "store")
+        },
+        subgraphs = @NamedSubgraph(name = "store", attributeNodes = @NamedAttributeNode("admin")))
 public class Stock {
 
+    public static final String DETAIL_GRAPH = "Stock.detail";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_id_seq")
+    @SequenceGenerator(name = "stock_id_seq", sequenceName = "stock_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -25,4 +35,9 @@ public class Stock {
     private Integer quantity;
     private Integer minQuantity;
 
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
+
 }
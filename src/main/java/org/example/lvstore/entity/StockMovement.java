@@ -0,0 +1,44 @@
+package org.example.lvstore.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.example.lvstore.service.enums.StockMovementReason;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
+
+/**
+ * One change of a store's stock of a product, appended in the transaction that made it and never
+ * updated. Product and store are plain ids so the history outlives them. {@code createdAt} is filled
+ * in by the database with the start time of the writing transaction, so every node stamps with the
+ * same clock.
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_movement_id_seq")
+    @SequenceGenerator(name = "stock_movement_id_seq", sequenceName = "stock_movement_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Long storeId;
+
+    @Column(nullable = false)
+    private Integer delta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private StockMovementReason reason;
+
+    @ColumnDefault("localtimestamp")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,36 @@
+package org.example.lvstore.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Quantity of a product in a store at {@code takenAt}, as replayed from the {@link StockMovement} ledger.
+ * A store's snapshot is the set of rows sharing its {@code takenAt}.
+ */
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"store_id", "taken_at", "product_id"}))
+public class StockSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_snapshot_id_seq")
+    @SequenceGenerator(name = "stock_snapshot_id_seq", sequenceName = "stock_snapshot_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long storeId;
+
+    @Column(nullable = false)
+    private LocalDateTime takenAt;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+}
@@ -2,16 +2,26 @@ package org.example.lvstore.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@NamedEntityGraph(name = WarehouseStock.DETAIL_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode(value = "warehouse", subgraph = "warehouse"),
+                @NamedAttributeNode("product")
+        },
+        subgraphs = @NamedSubgraph(name = "warehouse", attributeNodes = @NamedAttributeNode("manager")))
 public class WarehouseStock {
 
+    public static final String DETAIL_GRAPH = "WarehouseStock.detail";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "warehouse_stock_id_seq")
+    @SequenceGenerator(name = "warehouse_stock_id_seq", sequenceName = "warehouse_stock_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -23,4 +33,9 @@ public class WarehouseStock {
     private Product product;
 
     private Integer quantity;
+
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
 }
@@ -0,0 +1,12 @@
+package org.example.lvstore.payload.idempotency;
+
+/**
+ * @param body     the response serialized as JSON
+ * @param replayed whether this is the stored response of an earlier request with the same key
+ */
+public record IdempotentResponse(
+        int status,
+        String body,
+        boolean replayed
+) {
+}
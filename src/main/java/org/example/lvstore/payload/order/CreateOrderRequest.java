@@ -1,12 +1,18 @@
 package org.example.lvstore.payload.order;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
+/**
+ * Either a single-product order ({@code productId} and {@code quantity}) or a multi-line one
+ * ({@code lines}, with {@code productId} and {@code quantity} left empty).
+ */
 public record CreateOrderRequest(
     String status,
     Integer quantity,
     LocalDateTime createdAt,
     Long productId,
     Long storeId,
-    Long creatorId){
+    Long creatorId,
+    List<OrderLineRequest> lines){
 }
@@ -0,0 +1,20 @@
+package org.example.lvstore.payload.order;
+
+/**
+ * Outcome of one item of a batch create, {@code index} being its position in the request.
+ * Exactly one of {@code orderId} and {@code error} is set.
+ */
+public record OrderBatchResult(
+        int index,
+        Long orderId,
+        String error
+) {
+
+    public static OrderBatchResult created(int index, Long orderId) {
+        return new OrderBatchResult(index, orderId, null);
+    }
+
+    public static OrderBatchResult failed(int index, String error) {
+        return new OrderBatchResult(index, null, error);
+    }
+}
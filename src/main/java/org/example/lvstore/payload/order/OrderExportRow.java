@@ -0,0 +1,15 @@
+package org.example.lvstore.payload.order;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import org.example.lvstore.entity.Order;
+
+import java.util.List;
+
+/**
+ * One line of the order export: the order's own fields followed by its lines.
+ */
+public record OrderExportRow(
+        @JsonUnwrapped Order order,
+        List<OrderLineView> lines
+) {
+}
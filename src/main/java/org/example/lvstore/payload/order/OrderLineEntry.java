@@ -0,0 +1,17 @@
+package org.example.lvstore.payload.order;
+
+/**
+ * An order line with the id of its order, for loading the lines of many orders in one query.
+ */
+public record OrderLineEntry(
+        Long orderId,
+        Long id,
+        Long productId,
+        String productName,
+        Integer quantity
+) {
+
+    public OrderLineView view() {
+        return new OrderLineView(id, productId, productName, quantity);
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.lvstore.payload.order;
+
+/**
+ * Total quantity of one product over the lines of an order.
+ */
+public record OrderLineQuantity(
+        Long orderId,
+        Long productId,
+        Long quantity
+) {
+}
@@ -0,0 +1,7 @@
+package org.example.lvstore.payload.order;
+
+public record OrderLineRequest(
+        Long productId,
+        Integer quantity
+) {
+}
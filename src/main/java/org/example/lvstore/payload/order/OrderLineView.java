@@ -0,0 +1,9 @@
+package org.example.lvstore.payload.order;
+
+public record OrderLineView(
+        Long id,
+        Long productId,
+        String productName,
+        Integer quantity
+) {
+}
@@ -0,0 +1,16 @@
+package org.example.lvstore.payload.order;
+
+import org.example.lvstore.service.enums.OrderStatus;
+
+/**
+ * What a bulk transition needs to know about an order; {@code productId} and {@code quantity} are
+ * {@code null} for multi-line orders.
+ */
+public record OrderStockView(
+        Long id,
+        OrderStatus status,
+        Long productId,
+        Long storeId,
+        Integer quantity
+) {
+}
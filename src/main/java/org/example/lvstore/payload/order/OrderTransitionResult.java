@@ -0,0 +1,22 @@
+package org.example.lvstore.payload.order;
+
+import org.example.lvstore.service.enums.OrderStatus;
+
+/**
+ * Outcome of a bulk transition for one order. Exactly one of {@code status} (the new status) and
+ * {@code error} is set.
+ */
+public record OrderTransitionResult(
+        Long orderId,
+        OrderStatus status,
+        String error
+) {
+
+    public static OrderTransitionResult succeeded(Long orderId, OrderStatus status) {
+        return new OrderTransitionResult(orderId, status, null);
+    }
+
+    public static OrderTransitionResult failed(Long orderId, String error) {
+        return new OrderTransitionResult(orderId, null, error);
+    }
+}
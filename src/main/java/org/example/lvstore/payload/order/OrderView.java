@@ -0,0 +1,37 @@
+package org.example.lvstore.payload.order;
+
+import org.example.lvstore.service.enums.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * {@code lines} is empty for a single-product order, whose product and quantity are on the order itself.
+ */
+public record OrderView(
+        Long id,
+        OrderStatus status,
+        Integer quantity,
+        LocalDateTime createdAt,
+        Long productId,
+        String productName,
+        Long storeId,
+        String storeName,
+        Long creatorId,
+        Long version,
+        List<OrderLineView> lines
+) {
+
+    /**
+     * Used by the repository queries; lines are attached afterwards with {@link #withLines}.
+     */
+    public OrderView(Long id, OrderStatus status, Integer quantity, LocalDateTime createdAt, Long productId,
+                     String productName, Long storeId, String storeName, Long creatorId, Long version) {
+        this(id, status, quantity, createdAt, productId, productName, storeId, storeName, creatorId, version, List.of());
+    }
+
+    public OrderView withLines(List<OrderLineView> lines) {
+        return new OrderView(id, status, quantity, createdAt, productId, productName, storeId, storeName, creatorId,
+                version, lines);
+    }
+}
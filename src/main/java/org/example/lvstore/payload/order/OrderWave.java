@@ -0,0 +1,13 @@
+package org.example.lvstore.payload.order;
+
+import java.util.List;
+
+/**
+ * The oldest confirmed orders, up to the wave limit, and what has to be picked to ship them.
+ * Ship the wave with {@code PUT /orders/batch/ship} and {@code orderIds}.
+ */
+public record OrderWave(
+        List<Long> orderIds,
+        List<PickListLine> pickList
+) {
+}
@@ -0,0 +1,13 @@
+package org.example.lvstore.payload.order;
+
+/**
+ * Total quantity of a product to pick in a store for a wave, and how many orders it serves.
+ */
+public record PickListLine(
+        Long productId,
+        String productName,
+        Long storeId,
+        Long quantity,
+        Long orders
+) {
+}
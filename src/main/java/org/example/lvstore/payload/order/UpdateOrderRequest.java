@@ -8,6 +8,7 @@ public record UpdateOrderRequest(
         LocalDateTime createdAt,
         Long productId,
         Long storeId,
-        Long creatorId
+        Long creatorId,
+        Long version
 ) {
 }
@@ -0,0 +1,47 @@
+package org.example.lvstore.payload.page;
+
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset (cursor) listing ordered by id.
+ * Pass {@code nextCursor} back as {@code ?after=} to fetch the following page;
+ * it is {@code null} once the last page has been reached.
+ */
+public record CursorPage<T>(
+        List<T> items,
+        Long nextCursor,
+        boolean hasMore
+) {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    public static int pageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    public static long startAfter(Long after) {
+        return after == null ? 0L : after;
+    }
+
+    /**
+     * Limit to request from the repository: one extra row tells whether another page exists.
+     */
+    public static Limit fetchLimit(int pageSize) {
+        return Limit.of(pageSize + 1);
+    }
+
+    public static <T> CursorPage<T> of(List<T> rows, int pageSize, Function<T, Long> idOf) {
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null, false);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new CursorPage<>(List.copyOf(items), idOf.apply(items.get(pageSize - 1)), true);
+    }
+}
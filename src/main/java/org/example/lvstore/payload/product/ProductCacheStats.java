@@ -0,0 +1,11 @@
+package org.example.lvstore.payload.product;
+
+public record ProductCacheStats(
+        long size,
+        long idHits,
+        long idMisses,
+        long barcodeHits,
+        long barcodeMisses,
+        long evictions
+) {
+}
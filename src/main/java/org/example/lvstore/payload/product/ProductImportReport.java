@@ -0,0 +1,21 @@
+package org.example.lvstore.payload.product;
+
+import java.util.List;
+
+/**
+ * Summary of a CSV import. {@code duplicates} counts rows whose barcode repeats within the same chunk
+ * (the last one wins); a barcode repeated in a later chunk is saved again and counted as updated.
+ * {@code errors} lists at most the first 100 skipped rows. {@code failedAtLine} and {@code failure} are set
+ * when an unreadable record stopped the import; the rows before it were saved.
+ */
+public record ProductImportReport(
+        long rows,
+        long created,
+        long updated,
+        long duplicates,
+        long skipped,
+        List<String> errors,
+        Long failedAtLine,
+        String failure
+) {
+}
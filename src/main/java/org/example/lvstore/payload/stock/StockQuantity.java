@@ -0,0 +1,11 @@
+package org.example.lvstore.payload.stock;
+
+/**
+ * A quantity of a product in a store, either on the shelves or needed by an order.
+ */
+public record StockQuantity(
+        Long productId,
+        Long storeId,
+        Integer quantity
+) {
+}
@@ -0,0 +1,14 @@
+package org.example.lvstore.payload.stock;
+
+public record StockView(
+        Long id,
+        Long productId,
+        String productName,
+        String barcode,
+        Long storeId,
+        String storeName,
+        Integer quantity,
+        Integer minQuantity,
+        Long version
+) {
+}
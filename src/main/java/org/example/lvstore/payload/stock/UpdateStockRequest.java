@@ -5,6 +5,7 @@ public record UpdateStockRequest(
         Long productId,
         Long storeId,
         Integer quantity,
-        Integer minQuantity
+        Integer minQuantity,
+        Long version
 ) {
 }
@@ -4,6 +4,7 @@ public record UpdateWarehouseStockRequest(
         Long id,
         Long warehouseId,
         Long productId,
-        Integer quantity
+        Integer quantity,
+        Long version
 ) {
 }
@@ -0,0 +1,12 @@
+package org.example.lvstore.payload.warehousestock;
+
+public record WarehouseStockView(
+        Long id,
+        Long warehouseId,
+        String warehouseName,
+        Long productId,
+        String productName,
+        Integer quantity,
+        Long version
+) {
+}
@@ -0,0 +1,21 @@
+package org.example.lvstore.repository;
+
+import org.example.lvstore.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdAt < :cutoff")
+    int deleteCreatedBefore(LocalDateTime cutoff);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.id = :id and r.createdAt < :cutoff")
+    int deleteExpired(String id, LocalDateTime cutoff);
+}
@@ -0,0 +1,37 @@
+package org.example.lvstore.repository;
+
+import org.example.lvstore.entity.OrderLine;
+import org.example.lvstore.payload.order.OrderLineEntry;
+import org.example.lvstore.payload.order.OrderLineQuantity;
+import org.example.lvstore.payload.order.OrderLineView;
+import org.example.lvstore.payload.order.PickListLine;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface OrderLineRepository extends JpaRepository<OrderLine, Long> {
+
+    @Query("select new org.example.lvstore.payload.order.OrderLineView(l.id, p.id, p.name, l.quantity) " +
+            "from OrderLine l left join l.product p where l.order.id = :orderId order by l.id")
+    List<OrderLineView> findViewsByOrderId(Long orderId);
+
+    @Query("select new org.example.lvstore.payload.order.OrderLineEntry(l.order.id, l.id, p.id, p.name, l.quantity) " +
+            "from OrderLine l left join l.product p where l.order.id in :orderIds order by l.id")
+    List<OrderLineEntry> findViewsByOrderIdIn(Collection<Long> orderIds);
+
+    boolean existsByOrderId(Long orderId);
+
+    @Query("select count(distinct l.product.id) from OrderLine l where l.order.id = :orderId")
+    long countProductsByOrderId(Long orderId);
+
+    @Query("select new org.example.lvstore.payload.order.OrderLineQuantity(l.order.id, l.product.id, sum(l.quantity)) " +
+            "from OrderLine l where l.order.id in :orderIds group by l.order.id, l.product.id")
+    List<OrderLineQuantity> findQuantitiesByOrderIds(Collection<Long> orderIds);
+
+    @Query("select new org.example.lvstore.payload.order.PickListLine(" +
+            "p.id, p.name, o.store.id, sum(l.quantity), count(distinct o.id)) " +
+            "from OrderLine l join l.order o join l.product p where o.id in :orderIds group by p.id, p.name, o.store.id")
+    List<PickListLine> findPickListByOrderIds(Collection<Long> orderIds);
+}
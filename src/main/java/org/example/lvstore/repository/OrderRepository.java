@@ -1,12 +1,127 @@
 package org.example.lvstore.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.example.lvstore.entity.Order;
+import org.example.lvstore.payload.order.OrderStockView;
+import org.example.lvstore.payload.order.OrderView;
+import org.example.lvstore.payload.order.PickListLine;
 import org.example.lvstore.service.enums.OrderStatus;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    List<Order> findByStoreId(Long storeId);
-    List<Order> findByStatus(OrderStatus status);
+
+    String SELECT_VIEW = "select new org.example.lvstore.payload.order.OrderView(" +
+            "o.id, o.status, o.quantity, o.createdAt, p.id, p.name, s.id, s.name, u.id, o.version) " +
+            "from Order o left join o.product p left join o.store s left join o.createdBy u ";
+
+    @EntityGraph(Order.DETAIL_GRAPH)
+    @Override
+    Optional<Order> findById(Long id);
+
+    @Query(SELECT_VIEW + "where o.id = :id")
+    Optional<OrderView> findViewById(Long id);
+
+    @Query("select o.status from Order o where o.id = :id")
+    Optional<OrderStatus> findStatusById(Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o.status from Order o where o.id = :id")
+    Optional<OrderStatus> findStatusByIdForUpdate(Long id);
+
+    /**
+     * Moves the order to {@code to} only if it is still in {@code from}.
+     *
+     * @return 1 if the transition happened, 0 if the order is missing or in another status
+     */
+    @Transactional
+    @Modifying
+    @Query("update Order o set o.status = :to, o.version = o.version + 1 where o.id = :id and o.status = :from")
+    int updateStatus(Long id, OrderStatus from, OrderStatus to);
+
+    /**
+     * Reads and locks the orders for a bulk transition. Rows are locked in id order, so overlapping
+     * batches wait for each other instead of deadlocking.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new org.example.lvstore.payload.order.OrderStockView(" +
+            "o.id, o.status, o.product.id, o.store.id, o.quantity) from Order o where o.id in :ids order by o.id")
+    List<OrderStockView> findStockViewsForUpdate(Collection<Long> ids);
+
+    /**
+     * Moves every order of {@code ids} that is in one of the {@code from} statuses to {@code to}.
+     *
+     * @return the number of orders moved
+     */
+    @Transactional
+    @Modifying
+    @Query("update Order o set o.status = :to, o.version = o.version + 1 where o.id in :ids and o.status in :from")
+    int updateStatuses(Collection<Long> ids, Collection<OrderStatus> from, OrderStatus to);
+
+    /**
+     * Locks up to {@code limit} of the oldest orders in {@code status} created before {@code before},
+     * skipping rows another transaction holds, so concurrent runs take disjoint chunks.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("select o.id from Order o where o.status = :status and o.createdAt < :before order by o.createdAt")
+    List<Long> findIdsCreatedBeforeForUpdate(OrderStatus status, LocalDateTime before, Limit limit);
+
+    /**
+     * Stamps the orders in {@code status} that have no creation time with {@code now}, so they age from then.
+     * Answered from the (status, created_at) index.
+     *
+     * @return the number of orders stamped
+     */
+    @Transactional
+    @Modifying
+    @Query("update Order o set o.createdAt = :now, o.version = o.version + 1 where o.status = :status and o.createdAt is null")
+    int stampMissingCreatedAt(OrderStatus status, LocalDateTime now);
+
+    @Query("select o.id from Order o where o.status = :status and o.id > :after order by o.id")
+    List<Long> findIdsByStatusAfter(OrderStatus status, Long after, Limit limit);
+
+    @Query("select o.id from Order o where o.store.id = :storeId and o.status = :status and o.id > :after order by o.id")
+    List<Long> findIdsByStoreIdAndStatusAfter(Long storeId, OrderStatus status, Long after, Limit limit);
+
+    /**
+     * Pick list of the single-product orders among {@code ids}; see
+     * {@link OrderLineRepository#findPickListByOrderIds} for multi-line ones.
+     */
+    @Query("select new org.example.lvstore.payload.order.PickListLine(" +
+            "p.id, p.name, o.store.id, sum(o.quantity), count(o)) " +
+            "from Order o join o.product p where o.id in :ids group by p.id, p.name, o.store.id")
+    List<PickListLine> findPickListByIds(Collection<Long> ids);
+
+    @Query(SELECT_VIEW + "where o.id > :after order by o.id")
+    List<OrderView> findViewsAfter(Long after, Limit limit);
+
+    @Query(SELECT_VIEW + "where s.id = :storeId and o.id > :after order by o.id")
+    List<OrderView> findViewsByStoreIdAfter(Long storeId, Long after, Limit limit);
+
+    @Query(SELECT_VIEW + "where o.status = :status and o.id > :after order by o.id")
+    List<OrderView> findViewsByStatusAfter(OrderStatus status, Long after, Limit limit);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select o from Order o left join fetch o.product left join fetch o.store s left join fetch s.admin " +
+            "left join fetch o.createdBy order by o.id")
+    Stream<Order> streamAllForExport();
 }
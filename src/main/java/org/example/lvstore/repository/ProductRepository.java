@@ -1,11 +1,17 @@
 package org.example.lvstore.repository;
 
 import org.example.lvstore.entity.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
     boolean existsByBarcode(String barcode);
     Optional<Product> findByBarcode(String barcode);
+    List<Product> findByBarcodeIn(Collection<String> barcodes);
+
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
 }
@@ -0,0 +1,60 @@
+package org.example.lvstore.repository;
+
+import org.example.lvstore.entity.StockMovement;
+import org.example.lvstore.payload.stock.StockQuantity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+    String SELECT_DELTAS = "select new org.example.lvstore.payload.stock.StockQuantity(" +
+            "m.productId, m.storeId, cast(sum(m.delta) as Integer)) from StockMovement m ";
+    String DELETED = "org.example.lvstore.service.enums.StockMovementReason.DELETED";
+
+    /**
+     * Net change per product of the store in {@code (after, until]}.
+     */
+    @Query(SELECT_DELTAS + "where m.storeId = :storeId and m.createdAt > :after and m.createdAt <= :until " +
+            "group by m.productId, m.storeId")
+    List<StockQuantity> findDeltas(Long storeId, LocalDateTime after, LocalDateTime until);
+
+    @Query(SELECT_DELTAS + "where m.storeId = :storeId and m.createdAt > :after group by m.productId, m.storeId")
+    List<StockQuantity> findDeltasAfter(Long storeId, LocalDateTime after);
+
+    /**
+     * Time up to which the ledger is complete: just before the oldest transaction still running on this
+     * database, or before now. Movements are stamped with the start of their transaction, so every
+     * movement stamped at or before the returned time is committed or rolled back, and none can still
+     * appear there. The caller's own transaction is always among the running ones. Background workers
+     * and sessions on other databases are left out, as they never write movements.
+     */
+    @Query(value = "select cast(least(localtimestamp, min(xact_start)) - interval '1 microsecond' as timestamp) " +
+            "from pg_stat_activity where datname = current_database() and backend_type = 'client backend'",
+            nativeQuery = true)
+    LocalDateTime findSettledUntil();
+
+    /**
+     * Writes off the stock rows of a product before it is deleted, which removes them by cascade.
+     */
+    @Transactional
+    @Modifying
+    @Query("insert into StockMovement (productId, storeId, delta, reason) " +
+            "select s.product.id, s.store.id, -s.quantity, " + DELETED + " from Stock s " +
+            "where s.product.id = :productId and s.quantity <> 0")
+    int recordProductRemoval(Long productId);
+
+    /**
+     * Writes off the stock rows of a store before it is deleted, which removes them by cascade.
+     */
+    @Transactional
+    @Modifying
+    @Query("insert into StockMovement (productId, storeId, delta, reason) " +
+            "select s.product.id, s.store.id, -s.quantity, " + DELETED + " from Stock s " +
+            "where s.store.id = :storeId and s.quantity <> 0")
+    int recordStoreRemoval(Long storeId);
+}
@@ -1,14 +1,105 @@
 package org.example.lvstore.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.example.lvstore.entity.Stock;
+import org.example.lvstore.payload.stock.StockQuantity;
+import org.example.lvstore.payload.stock.StockView;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface StockRepository extends JpaRepository<Stock, Long> {
-    List<Stock> findByStoreId(Long storeId);
-    List<Stock> findByProductId(Long productId);
-    Optional<Stock> findByProductIdAndStoreId(Long productId, Long storeId);
-}
 
+    String SELECT_VIEW = "select new org.example.lvstore.payload.stock.StockView(" +
+            "st.id, p.id, p.name, p.barcode, s.id, s.name, st.quantity, st.minQuantity, st.version) " +
+            "from Stock st left join st.product p left join st.store s ";
+    String ORDER_LINE_PRODUCTS = "(select l.product.id from OrderLine l where l.order.id = :orderId)";
+    String ORDER_LINE_QUANTITY = "(select sum(l.quantity) from OrderLine l where l.order.id = :orderId and l.product.id = s.product.id)";
+
+    @EntityGraph(Stock.DETAIL_GRAPH)
+    @Override
+    Optional<Stock> findById(Long id);
+
+    boolean existsByProductIdAndStoreId(Long productId, Long storeId);
+
+    @Transactional
+    @Modifying
+    @Query("update Stock s set s.quantity = s.quantity - :quantity, s.version = s.version + 1 " +
+            "where s.product.id = :productId and s.store.id = :storeId and s.quantity >= :quantity")
+    int decreaseQuantity(Long productId, Long storeId, Integer quantity);
+
+    @Transactional
+    @Modifying
+    @Query("update Stock s set s.quantity = s.quantity + :quantity, s.version = s.version + 1 " +
+            "where s.product.id = :productId and s.store.id = :storeId")
+    int increaseQuantity(Long productId, Long storeId, Integer quantity);
+
+    /**
+     * Takes every line of the order off the store's stock in one statement; lines for the same product
+     * are summed. Returns the number of products taken, which is short of
+     * {@link OrderLineRepository#countProductsByOrderId} if any product is missing or understocked.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Stock s set s.quantity = s.quantity - " + ORDER_LINE_QUANTITY + ", s.version = s.version + 1 " +
+            "where s.store.id = :storeId and s.product.id in " + ORDER_LINE_PRODUCTS +
+            " and s.quantity >= " + ORDER_LINE_QUANTITY)
+    int decreaseQuantitiesForOrder(Long orderId, Long storeId);
+
+    @Transactional
+    @Modifying
+    @Query("update Stock s set s.quantity = s.quantity + " + ORDER_LINE_QUANTITY + ", s.version = s.version + 1 " +
+            "where s.store.id = :storeId and s.product.id in " + ORDER_LINE_PRODUCTS)
+    int increaseQuantitiesForOrder(Long orderId, Long storeId);
+
+    /**
+     * Reads and locks the quantities of the given products in the given stores; may include pairs nobody
+     * asked for. Rows are locked in (product, store) order, so overlapping batches wait for each other
+     * instead of deadlocking.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select new org.example.lvstore.payload.stock.StockQuantity(s.product.id, s.store.id, s.quantity) " +
+            "from Stock s where s.product.id in :productIds and s.store.id in :storeIds order by s.product.id, s.store.id")
+    List<StockQuantity> findQuantitiesForUpdate(Collection<Long> productIds, Collection<Long> storeIds);
+
+    @Query("select new org.example.lvstore.payload.stock.StockQuantity(s.product.id, s.store.id, s.quantity) " +
+            "from Stock s where s.store.id = :storeId")
+    List<StockQuantity> findQuantitiesByStoreId(Long storeId);
+
+    @Query(SELECT_VIEW + "where st.id = :id")
+    Optional<StockView> findViewById(Long id);
+
+    @Query(SELECT_VIEW + "where st.id > :after order by st.id")
+    List<StockView> findViewsAfter(Long after, Limit limit);
+
+    @Query(SELECT_VIEW + "where s.id = :storeId and st.id > :after order by st.id")
+    List<StockView> findViewsByStoreIdAfter(Long storeId, Long after, Limit limit);
+
+    @Query(SELECT_VIEW + "where p.id = :productId and st.id > :after order by st.id")
+    List<StockView> findViewsByProductIdAfter(Long productId, Long after, Limit limit);
+
+    @Query(SELECT_VIEW + "where st.quantity <= st.minQuantity and st.id > :after order by st.id")
+    List<StockView> findCriticalViewsAfter(Long after, Limit limit);
+
+    @Query(SELECT_VIEW + "where s.id = :storeId and st.quantity <= st.minQuantity and st.id > :after order by st.id")
+    List<StockView> findCriticalViewsByStoreIdAfter(Long storeId, Long after, Limit limit);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select s from Stock s left join fetch s.product left join fetch s.store st left join fetch st.admin order by s.id")
+    Stream<Stock> streamAllForExport();
+}
@@ -0,0 +1,28 @@
+package org.example.lvstore.repository;
+
+import org.example.lvstore.entity.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+
+    @Query("select max(s.takenAt) from StockSnapshot s where s.storeId = :storeId and s.takenAt <= :at")
+    Optional<LocalDateTime> findLatestTakenAt(Long storeId, LocalDateTime at);
+
+    @Query("select max(s.takenAt) from StockSnapshot s where s.storeId = :storeId")
+    Optional<LocalDateTime> findLatestTakenAt(Long storeId);
+
+    /**
+     * Takes a transaction-scoped advisory lock on {@code (key, storeId)} without waiting.
+     *
+     * @return whether the lock was taken
+     */
+    @Query(value = "select pg_try_advisory_xact_lock(:key, cast(:storeId as integer))", nativeQuery = true)
+    boolean tryLock(int key, Long storeId);
+
+    List<StockSnapshot> findByStoreIdAndTakenAt(Long storeId, LocalDateTime takenAt);
+}
@@ -1,7 +1,15 @@
 package org.example.lvstore.repository;
 
 import org.example.lvstore.entity.Store;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface StoreRepository extends JpaRepository<Store, Long> {
+    List<Store> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+    @Query("select s.id from Store s order by s.id")
+    List<Long> findAllIds();
 }
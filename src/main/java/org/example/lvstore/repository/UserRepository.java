@@ -1,8 +1,10 @@
 package org.example.lvstore.repository;
 
 import org.example.lvstore.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -10,4 +12,6 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
     Optional<User> findByEmail(String email);
+
+    List<User> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
 }
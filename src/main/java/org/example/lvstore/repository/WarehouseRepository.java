@@ -1,7 +1,11 @@
 package org.example.lvstore.repository;
 
 import org.example.lvstore.entity.Warehouse;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 public interface WarehouseRepository extends JpaRepository<Warehouse, Long> {
+    List<Warehouse> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
 }
@@ -1,11 +1,46 @@
 package org.example.lvstore.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.lvstore.entity.WarehouseStock;
+import org.example.lvstore.payload.warehousestock.WarehouseStockView;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface WarehouseStockRepository extends JpaRepository<WarehouseStock, Long> {
-    List<WarehouseStock> findByWarehouseId(Long warehouseId);
-    List<WarehouseStock> findByProductId(Long productId);
+
+    String SELECT_VIEW = "select new org.example.lvstore.payload.warehousestock.WarehouseStockView(" +
+            "ws.id, w.id, w.name, p.id, p.name, ws.quantity, ws.version) " +
+            "from WarehouseStock ws left join ws.warehouse w left join ws.product p ";
+
+    @EntityGraph(WarehouseStock.DETAIL_GRAPH)
+    @Override
+    Optional<WarehouseStock> findById(Long id);
+
+    @Query(SELECT_VIEW + "where ws.id = :id")
+    Optional<WarehouseStockView> findViewById(Long id);
+
+    @Query(SELECT_VIEW + "where ws.id > :after order by ws.id")
+    List<WarehouseStockView> findViewsAfter(Long after, Limit limit);
+
+    @Query(SELECT_VIEW + "where w.id = :warehouseId and ws.id > :after order by ws.id")
+    List<WarehouseStockView> findViewsByWarehouseIdAfter(Long warehouseId, Long after, Limit limit);
+
+    @Query(SELECT_VIEW + "where p.id = :productId and ws.id > :after order by ws.id")
+    List<WarehouseStockView> findViewsByProductIdAfter(Long productId, Long after, Limit limit);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select ws from WarehouseStock ws left join fetch ws.warehouse w left join fetch w.manager " +
+            "left join fetch ws.product order by ws.id")
+    Stream<WarehouseStock> streamAllForExport();
 }
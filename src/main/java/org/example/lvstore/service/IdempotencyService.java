@@ -0,0 +1,153 @@
+package org.example.lvstore.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.lvstore.entity.IdempotencyRecord;
+import org.example.lvstore.payload.idempotency.IdempotentResponse;
+import org.example.lvstore.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/**
+ * Runs an operation at most once per {@code Idempotency-Key} and user, and answers retries with the
+ * response stored the first time. The key is inserted in the same transaction as the operation, so a
+ * retry racing the original waits on the insert and then replays its committed response; a failed
+ * operation stores nothing and may be retried. Recent responses are also kept in an in-memory LRU,
+ * so a retry costs one map lookup on the same node and one primary-key lookup on another. A record
+ * older than the TTL is never replayed; the key then starts a new operation.
+ */
+@Service
+public class IdempotencyService implements MeterBinder {
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionOperations transactionOperations;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Cache<String, IdempotencyRecord> recent;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              TransactionOperations transactionOperations,
+                              ObjectMapper objectMapper,
+                              @Value("${lvstore.idempotency.cache-size:10000}") long cacheSize,
+                              @Value("${lvstore.idempotency.ttl:24h}") Duration ttl) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.transactionOperations = transactionOperations;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param operation identifies the endpoint, e.g. {@code PUT /orders/1/ship}
+     * @param request   the request body, or {@code null}; a key reused with a different body is rejected
+     * @param status    the status to store with the result of {@code action}
+     * @throws IllegalArgumentException if the key is blank or too long, or was used for a different request
+     */
+    public IdempotentResponse execute(String key, String operation, Object request, int status, Supplier<?> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(String.format("Idempotency-Key must be 1 to %s characters", MAX_KEY_LENGTH));
+        }
+        String id = sha256(currentUser() + "\n" + key);
+        String fingerprint = sha256(operation + "\n" + json(request));
+
+        LocalDateTime cutoff = LocalDateTime.now().minus(ttl);
+        IdempotencyRecord stored = recent.getIfPresent(id);
+        if (stored == null) {
+            // a retry landing on another node
+            stored = idempotencyRecordRepository.findById(id).orElse(null);
+        }
+        if (stored != null && !stored.getCreatedAt().isBefore(cutoff)) {
+            recent.put(id, stored);
+            return replay(stored, key, fingerprint);
+        }
+        // past its TTL the key is free again, whether or not cleanup has deleted the record yet
+        boolean expired = stored != null;
+        if (expired) {
+            recent.invalidate(id);
+        }
+        try {
+            IdempotencyRecord record = transactionOperations.execute(tx -> {
+                if (expired) {
+                    idempotencyRecordRepository.deleteExpired(id, cutoff);
+                }
+                IdempotencyRecord reserved = idempotencyRecordRepository.saveAndFlush(IdempotencyRecord.builder()
+                        .id(id)
+                        .fingerprint(fingerprint)
+                        .createdAt(LocalDateTime.now())
+                        .build());
+                reserved.setBody(json(action.get()));
+                reserved.setStatusCode(status);
+                return reserved;
+            });
+            recent.put(id, record);
+            return new IdempotentResponse(record.getStatusCode(), record.getBody(), false);
+        } catch (DataIntegrityViolationException e) {
+            IdempotencyRecord record = idempotencyRecordRepository.findById(id).orElseThrow(() -> e);
+            recent.put(id, record);
+            return replay(record, key, fingerprint);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${lvstore.idempotency.cleanup-interval:1h}")
+    public int deleteExpired() {
+        return idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+    }
+
+    private static IdempotentResponse replay(IdempotencyRecord record, String key, String fingerprint) {
+        if (!record.getFingerprint().equals(fingerprint)) {
+            throw new IllegalArgumentException(String.format("Idempotency-Key %s was already used for a different request", key));
+        }
+        return new IdempotentResponse(record.getStatusCode(), record.getBody(), true);
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? "" : authentication.getName();
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, recent, "idempotency.recent");
+    }
+}
@@ -1,8 +1,12 @@
 package org.example.lvstore.service;
 
+import com.nimbusds.jose.jwk.JWK;
 import lombok.RequiredArgsConstructor;
+import org.example.lvstore.config.security.JwtKeyStore;
 import org.example.lvstore.entity.User;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
 import org.springframework.security.oauth2.jwt.JwtClaimsSet;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
@@ -17,6 +21,7 @@ import java.util.stream.Collectors;
 public class JwtService {
 
     private final JwtEncoder jwtEncoder;
+    private final JwtKeyStore jwtKeyStore;
     private final Duration TTL = Duration.ofDays(7);
 
     public String generateToken(User user) {
@@ -29,7 +34,12 @@ public class JwtService {
                 .claim("authorities", createScope(user))
                 .build();
 
-        return jwtEncoder.encode(JwtEncoderParameters.from(claims)).getTokenValue();
+        JWK key = jwtKeyStore.signingKey();
+        var header = JwsHeader.with(SignatureAlgorithm.from(key.getAlgorithm().getName()))
+                .keyId(key.getKeyID())
+                .build();
+
+        return jwtEncoder.encode(JwtEncoderParameters.from(header, claims)).getTokenValue();
     }
 
     private String createScope(User user) {
@@ -0,0 +1,82 @@
+package org.example.lvstore.service;
+
+import org.example.lvstore.config.DatabasePlatform;
+import org.example.lvstore.config.metrics.OrderMetrics;
+import org.example.lvstore.repository.OrderRepository;
+import org.example.lvstore.service.enums.OrderStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Cancels NEW orders older than {@code lvstore.orders.expiry.age}. Each chunk is one short transaction:
+ * an index range read on (status, created_at) that locks at most {@code chunk-size} rows, skipping
+ * rows held by users, and one conditional UPDATE of those ids. A run therefore costs in proportion to
+ * the stale orders, not to the table, and never holds many locks at once.
+ * <p>
+ * NEW orders without a creation time (rows from before the column was filled in) are first stamped with
+ * the time of the run, so they expire one age later instead of never. The job only runs on PostgreSQL,
+ * whose {@code SKIP LOCKED} it relies on.
+ */
+@Service
+public class OrderExpiryService {
+
+    private final OrderRepository orderRepository;
+    private final TransactionOperations transactionOperations;
+    private final OrderMetrics orderMetrics;
+    private final DatabasePlatform databasePlatform;
+    private final Duration age;
+    private final int chunkSize;
+
+    public OrderExpiryService(OrderRepository orderRepository,
+                              TransactionOperations transactionOperations,
+                              OrderMetrics orderMetrics,
+                              DatabasePlatform databasePlatform,
+                              @Value("${lvstore.orders.expiry.age:7d}") Duration age,
+                              @Value("${lvstore.orders.expiry.chunk-size:500}") int chunkSize) {
+        this.orderRepository = orderRepository;
+        this.transactionOperations = transactionOperations;
+        this.orderMetrics = orderMetrics;
+        this.databasePlatform = databasePlatform;
+        this.age = age;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return the number of orders cancelled, 0 when the database is not PostgreSQL
+     */
+    @Scheduled(fixedDelayString = "${lvstore.orders.expiry.interval:10m}")
+    public long expireStaleOrders() {
+        if (!databasePlatform.isPostgres()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        orderRepository.stampMissingCreatedAt(OrderStatus.NEW, now);
+        LocalDateTime cutoff = now.minus(age);
+        long expired = 0;
+        int chunk;
+        do {
+            chunk = transactionOperations.execute(tx -> expireChunk(cutoff));
+            expired += chunk;
+        } while (chunk == chunkSize);
+        if (expired > 0) {
+            orderMetrics.expired(expired);
+        }
+        return expired;
+    }
+
+    private int expireChunk(LocalDateTime cutoff) {
+        List<Long> ids = orderRepository.findIdsCreatedBeforeForUpdate(OrderStatus.NEW, cutoff, Limit.of(chunkSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return orderRepository.updateStatuses(ids, Set.of(OrderStatus.NEW), OrderStatus.CANCELLED);
+    }
+}
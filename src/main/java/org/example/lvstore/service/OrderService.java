@@ -1,34 +1,95 @@
 package org.example.lvstore.service;
 
 import lombok.RequiredArgsConstructor;
+import org.example.lvstore.config.metrics.OrderMetrics;
 import org.example.lvstore.entity.Order;
+import org.example.lvstore.entity.OrderLine;
 import org.example.lvstore.entity.Product;
 import org.example.lvstore.entity.Store;
 import org.example.lvstore.entity.User;
 import org.example.lvstore.payload.order.CreateOrderRequest;
+import org.example.lvstore.payload.order.OrderBatchResult;
+import org.example.lvstore.payload.order.OrderLineQuantity;
+import org.example.lvstore.payload.order.OrderLineRequest;
+import org.example.lvstore.payload.order.OrderExportRow;
+import org.example.lvstore.payload.order.OrderLineEntry;
+import org.example.lvstore.payload.order.OrderLineView;
+import org.example.lvstore.payload.order.OrderStockView;
+import org.example.lvstore.payload.order.OrderTransitionResult;
+import org.example.lvstore.payload.order.OrderView;
 import org.example.lvstore.payload.order.UpdateOrderRequest;
+import org.example.lvstore.payload.page.CursorPage;
+import org.example.lvstore.payload.stock.StockQuantity;
+import org.example.lvstore.repository.OrderLineRepository;
 import org.example.lvstore.repository.OrderRepository;
 import org.example.lvstore.service.enums.OrderStatus;
+import org.example.lvstore.service.enums.OrderTransition;
+import org.example.lvstore.service.export.NdjsonExporter;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
 
+    public static final int MAX_BATCH_SIZE = 500;
+    public static final int MAX_LINES = 1000;
+
     private final OrderRepository orderRepository;
+    private final OrderLineRepository orderLineRepository;
     private final ProductService productService;
     private final StoreService storeService;
     private final UserService userService;
     private final StockService stockService;
+    private final NdjsonExporter ndjsonExporter;
+    private final OrderMetrics orderMetrics;
 
+    /**
+     * Creates a single-product order, or an order header with its lines; all lines are saved in one batch.
+     */
+    @Transactional
     public Order createOrder(CreateOrderRequest createOrderRequest) {
+        if (hasLines(createOrderRequest)) {
+            Map<Long, Product> products = productService.getProductsByIds(productIds(List.of(createOrderRequest)));
+            String error = validateLines(createOrderRequest, products);
+            if (error != null) {
+                throw new IllegalArgumentException(error);
+            }
+            Order order = orderRepository.save(Order.builder()
+                    .status(OrderStatus.valueOf(createOrderRequest.status()))
+                    .createdAt(createdAt(createOrderRequest.createdAt()))
+                    .store(storeService.getStoreById(createOrderRequest.storeId()))
+                    .createdBy(userService.getUserById(createOrderRequest.creatorId()))
+                    .build());
+            orderLineRepository.saveAll(lines(order, createOrderRequest, products));
+            return order;
+        }
+
         Order order = Order.builder()
                 .status(OrderStatus.valueOf(createOrderRequest.status()))
                 .quantity(createOrderRequest.quantity())
-                .createdAt(createOrderRequest.createdAt())
+                .createdAt(createdAt(createOrderRequest.createdAt()))
                 .product(productService.getProductById(createOrderRequest.productId()))
                 .store(storeService.getStoreById(createOrderRequest.storeId()))
                 .createdBy(userService.getUserById(createOrderRequest.creatorId()))
@@ -36,32 +97,244 @@ public class OrderService {
         return orderRepository.save(order);
     }
 
+    /**
+     * Creates many orders in one transaction. Products, stores and creators are resolved with one
+     * query per type; items referencing unknown ids are reported and skipped, the rest are saved together.
+     */
+    @Transactional
+    public List<OrderBatchResult> createOrders(List<CreateOrderRequest> requests) {
+        if (requests.isEmpty() || requests.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException(String.format("Batch must contain between 1 and %s orders", MAX_BATCH_SIZE));
+        }
+
+        Map<Long, Product> products = productService.getProductsByIds(productIds(requests));
+        Map<Long, Store> stores = storeService.getStoresByIds(referencedIds(requests, CreateOrderRequest::storeId));
+        Map<Long, User> creators = userService.getUsersByIds(referencedIds(requests, CreateOrderRequest::creatorId));
+
+        List<OrderBatchResult> results = new ArrayList<>(requests.size());
+        List<Order> orders = new ArrayList<>();
+        List<Integer> orderIndexes = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            CreateOrderRequest request = requests.get(i);
+            String error = validate(request, products, stores, creators);
+            results.add(error == null ? null : OrderBatchResult.failed(i, error));
+            if (error == null) {
+                orders.add(Order.builder()
+                        .status(OrderStatus.valueOf(request.status()))
+                        .quantity(request.quantity())
+                        .createdAt(createdAt(request.createdAt()))
+                        .product(request.productId() == null ? null : products.get(request.productId()))
+                        .store(stores.get(request.storeId()))
+                        .createdBy(creators.get(request.creatorId()))
+                        .build());
+                orderIndexes.add(i);
+            }
+        }
+
+        List<Order> saved = orderRepository.saveAll(orders);
+        List<OrderLine> lines = new ArrayList<>();
+        for (int i = 0; i < saved.size(); i++) {
+            int index = orderIndexes.get(i);
+            results.set(index, OrderBatchResult.created(index, saved.get(i).getId()));
+            if (hasLines(requests.get(index))) {
+                lines.addAll(lines(saved.get(i), requests.get(index), products));
+            }
+        }
+        orderLineRepository.saveAll(lines);
+        return results;
+    }
+
+    /**
+     * Creation time of a new order: the requested one, or now, so that every order can expire.
+     */
+    private static LocalDateTime createdAt(LocalDateTime requested) {
+        return requested == null ? LocalDateTime.now() : requested;
+    }
+
+    private static boolean hasLines(CreateOrderRequest request) {
+        return request.lines() != null && !request.lines().isEmpty();
+    }
+
+    /**
+     * Products referenced by the requests, whether as the single product or in lines.
+     */
+    private static Set<Long> productIds(List<CreateOrderRequest> requests) {
+        Set<Long> ids = new HashSet<>(referencedIds(requests, CreateOrderRequest::productId));
+        for (CreateOrderRequest request : requests) {
+            if (hasLines(request)) {
+                request.lines().stream()
+                        .map(OrderLineRequest::productId)
+                        .filter(Objects::nonNull)
+                        .forEach(ids::add);
+            }
+        }
+        return ids;
+    }
+
+    private static List<OrderLine> lines(Order order, CreateOrderRequest request, Map<Long, Product> products) {
+        return request.lines().stream()
+                .map(line -> OrderLine.builder()
+                        .order(order)
+                        .product(products.get(line.productId()))
+                        .quantity(line.quantity())
+                        .build())
+                .toList();
+    }
+
+    private static Set<Long> referencedIds(List<CreateOrderRequest> requests, Function<CreateOrderRequest, Long> id) {
+        return requests.stream()
+                .map(id)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    private static String validate(CreateOrderRequest request, Map<Long, Product> products,
+                                   Map<Long, Store> stores, Map<Long, User> creators) {
+        if (request.status() == null || Arrays.stream(OrderStatus.values()).noneMatch(s -> s.name().equals(request.status()))) {
+            return String.format("Unknown order status %s", request.status());
+        }
+        if (hasLines(request)) {
+            String error = validateLines(request, products);
+            if (error != null) {
+                return error;
+            }
+        } else {
+            if (request.quantity() == null || request.quantity() <= 0) {
+                return "Quantity must be positive";
+            }
+            if (!products.containsKey(request.productId())) {
+                return String.format("Product with id %s not found", request.productId());
+            }
+        }
+        if (!stores.containsKey(request.storeId())) {
+            return String.format("Store with id %s not found", request.storeId());
+        }
+        if (!creators.containsKey(request.creatorId())) {
+            return String.format("User with id %s not found", request.creatorId());
+        }
+        return null;
+    }
+
+    private static String validateLines(CreateOrderRequest request, Map<Long, Product> products) {
+        if (request.productId() != null || request.quantity() != null) {
+            return "An order has either lines or a product and quantity";
+        }
+        if (request.lines().size() > MAX_LINES) {
+            return String.format("An order has at most %s lines", MAX_LINES);
+        }
+        for (OrderLineRequest line : request.lines()) {
+            if (line.quantity() == null || line.quantity() <= 0) {
+                return "Quantity must be positive";
+            }
+            if (!products.containsKey(line.productId())) {
+                return String.format("Product with id %s not found", line.productId());
+            }
+        }
+        return null;
+    }
+
+    public OrderView getOrderViewById(Long id) {
+        OrderView order = orderRepository.findViewById(id)
+                .orElseThrow(() -> new NoSuchElementException(String.format("Order with id %s not found", id)));
+        return order.productId() != null ? order : order.withLines(orderLineRepository.findViewsByOrderId(id));
+    }
+
     public Order getOrderById(Long id) {
         return orderRepository.findById(id)
                 .orElseThrow(() -> new NoSuchElementException(String.format("Order with id %s not found", id)));
     }
 
-    public List<Order> getAllOrders() {
-        return orderRepository.findAll();
+    public List<OrderLineView> getOrderLines(Long id) {
+        List<OrderLineView> lines = orderLineRepository.findViewsByOrderId(id);
+        if (lines.isEmpty()) {
+            getOrderStatus(id);
+        }
+        return lines;
+    }
+
+    public CursorPage<OrderView> getOrders(Long after, Integer limit) {
+        int pageSize = CursorPage.pageSize(limit);
+        List<OrderView> rows = withLines(orderRepository.findViewsAfter(CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize)));
+        return CursorPage.of(rows, pageSize, OrderView::id);
     }
 
-    public List<Order> getOrdersByStoreId(Long storeId) {
-        return orderRepository.findByStoreId(storeId);
+    public CursorPage<OrderView> getOrdersByStoreId(Long storeId, Long after, Integer limit) {
+        int pageSize = CursorPage.pageSize(limit);
+        List<OrderView> rows = withLines(orderRepository.findViewsByStoreIdAfter(storeId, CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize)));
+        return CursorPage.of(rows, pageSize, OrderView::id);
     }
 
-    public List<Order> getOrdersByStatus(String status) {
-        return orderRepository.findByStatus(OrderStatus.valueOf(status));
+    public CursorPage<OrderView> getOrdersByStatus(String status, Long after, Integer limit) {
+        int pageSize = CursorPage.pageSize(limit);
+        List<OrderView> rows = withLines(orderRepository.findViewsByStatusAfter(OrderStatus.valueOf(status), CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize)));
+        return CursorPage.of(rows, pageSize, OrderView::id);
+    }
+
+    /**
+     * Attaches the lines of the multi-line orders among {@code orders}, loaded with one query.
+     */
+    private List<OrderView> withLines(List<OrderView> orders) {
+        Map<Long, List<OrderLineView>> lines = linesByOrderId(orders.stream()
+                .filter(order -> order.productId() == null)
+                .map(OrderView::id)
+                .toList());
+        if (lines.isEmpty()) {
+            return orders;
+        }
+        return orders.stream()
+                .map(order -> lines.containsKey(order.id()) ? order.withLines(lines.get(order.id())) : order)
+                .toList();
+    }
+
+    /**
+     * Streams every order with its lines; the lines are loaded with one query per exported batch.
+     */
+    @Transactional(readOnly = true)
+    public long exportOrders(OutputStream out) throws IOException {
+        try (Stream<Order> rows = orderRepository.streamAllForExport()) {
+            return ndjsonExporter.write(rows, this::exportRows, out);
+        }
+    }
+
+    private List<OrderExportRow> exportRows(List<Order> orders) {
+        Map<Long, List<OrderLineView>> lines = linesByOrderId(orders.stream()
+                .filter(order -> order.getProduct() == null)
+                .map(Order::getId)
+                .toList());
+        return orders.stream()
+                .map(order -> new OrderExportRow(order, lines.getOrDefault(order.getId(), List.of())))
+                .toList();
+    }
+
+    private Map<Long, List<OrderLineView>> linesByOrderId(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Map.of();
+        }
+        return orderLineRepository.findViewsByOrderIdIn(orderIds).stream()
+                .collect(Collectors.groupingBy(OrderLineEntry::orderId,
+                        Collectors.mapping(OrderLineEntry::view, Collectors.toList())));
     }
 
     public Order updateOrder(UpdateOrderRequest updateOrderRequest) {
 
         Order order = getOrderById(updateOrderRequest.id());
+        if (updateOrderRequest.version() != null && !updateOrderRequest.version().equals(order.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Order.class, updateOrderRequest.id());
+        }
+        if (orderLineRepository.existsByOrderId(order.getId())) {
+            throw new IllegalArgumentException("Orders with lines cannot be updated");
+        }
+        if (updateOrderRequest.productId() == null || updateOrderRequest.quantity() == null || updateOrderRequest.quantity() <= 0) {
+            throw new IllegalArgumentException("An order has either lines or a product and quantity");
+        }
         Product product = productService.getProductById(updateOrderRequest.productId());
         Store store = storeService.getStoreById(updateOrderRequest.storeId());
         User creator = userService.getUserById(updateOrderRequest.creatorId());
 
         order.setQuantity(updateOrderRequest.quantity());
-        order.setCreatedAt(updateOrderRequest.createdAt());
+        if (updateOrderRequest.createdAt() != null) {
+            order.setCreatedAt(updateOrderRequest.createdAt());
+        }
         order.setProduct(product);
         order.setStore(store);
         order.setCreatedBy(creator);
@@ -73,49 +346,151 @@ public class OrderService {
         orderRepository.deleteById(id);
     }
 
-    public Order confirmOrder(Long id) {
-        Order order = getOrderById(id);
-        if (order.getStatus() != OrderStatus.NEW) {
-            throw new IllegalStateException("Only NEW orders can be confirmed");
-        }
-        order.setStatus(OrderStatus.CONFIRMED);
-        return orderRepository.save(order);
+    @Transactional
+    public OrderView confirmOrder(Long id) {
+        transition(id, OrderStatus.NEW, OrderStatus.CONFIRMED, "Only NEW orders can be confirmed");
+        orderMetrics.transition(OrderStatus.NEW, OrderStatus.CONFIRMED);
+        return getOrderViewById(id);
     }
 
-    public Order cancelOrder(Long id) {
-        Order order = getOrderById(id);
-        if (order.getStatus() == OrderStatus.CANCELLED || order.getStatus() == OrderStatus.RECEIVED) {
+    /**
+     * Cancels from whatever status the order is in, as long as it is cancellable. The status is read
+     * with the row locked, so it cannot move before the update and the from/to metric stays exact.
+     */
+    @Transactional
+    public OrderView cancelOrder(Long id) {
+        OrderStatus from = orderRepository.findStatusByIdForUpdate(id)
+                .orElseThrow(() -> new NoSuchElementException(String.format("Order with id %s not found", id)));
+        if (!OrderTransition.CANCEL.from().contains(from)
+                || orderRepository.updateStatus(id, from, OrderStatus.CANCELLED) != 1) {
             throw new IllegalStateException("Cannot cancel order in this state");
         }
-        order.setStatus(OrderStatus.CANCELLED);
-        return orderRepository.save(order);
+        orderMetrics.transition(from, OrderStatus.CANCELLED);
+        return getOrderViewById(id);
     }
 
-    public Order shipOrder(Long id) {
-        Order order = getOrderById(id);
-        if (order.getStatus() != OrderStatus.CONFIRMED) {
-            throw new IllegalStateException("Only CONFIRMED orders can be shipped");
+    /**
+     * Marks the order shipped and takes its quantity from the store's stock in one transaction;
+     * if the stock is short, the status change is rolled back.
+     */
+    @Transactional
+    public OrderView shipOrder(Long id) {
+        transition(id, OrderStatus.CONFIRMED, OrderStatus.SHIPPED, "Only CONFIRMED orders can be shipped");
+        OrderView order = getOrderViewById(id);
+        boolean decreased = order.productId() != null
+                ? stockService.decreaseStock(order.productId(), order.storeId(), order.quantity())
+                : stockService.decreaseStockForOrder(id, order.storeId());
+        if (!decreased) {
+            throw new IllegalStateException("Not enough stock to ship order");
         }
+        orderMetrics.transition(OrderStatus.CONFIRMED, OrderStatus.SHIPPED);
+        return order;
+    }
 
-        boolean inStock = stockService.isInStock(order.getProduct().getId(), order.getStore().getId(), order.getQuantity());
-        if (!inStock) {
-            throw new IllegalStateException("Not enough stock to ship order");
+    @Transactional
+    public OrderView markAsDelivered(Long id) {
+        transition(id, OrderStatus.SHIPPED, OrderStatus.RECEIVED, "Only SHIPPED orders can be marked as delivered");
+        OrderView order = getOrderViewById(id);
+        if (order.productId() != null) {
+            stockService.increaseStock(order.productId(), order.storeId(), order.quantity());
+        } else {
+            stockService.increaseStockForOrder(id, order.storeId());
         }
+        orderMetrics.transition(OrderStatus.SHIPPED, OrderStatus.RECEIVED);
+        return order;
+    }
 
-        stockService.decreaseStock(order.getProduct().getId(), order.getStore().getId(), order.getQuantity());
-        order.setStatus(OrderStatus.SHIPPED);
-        return orderRepository.save(order);
+    /**
+     * Applies a transition to many orders: one locking read, one conditional UPDATE for all eligible
+     * orders and, when shipping, one stock UPDATE per (product, store). Orders that are missing, in
+     * the wrong status or short of stock are reported and left as they are; the rest move together.
+     *
+     * @return one result per distinct id, in request order
+     */
+    @Transactional
+    public List<OrderTransitionResult> transitionOrders(String name, List<Long> ids) {
+        return transitionOrders(OrderTransition.of(name), ids);
     }
 
-    public Order markAsDelivered(Long id) {
-        Order order = getOrderById(id);
-        if (order.getStatus() != OrderStatus.SHIPPED) {
-            throw new IllegalStateException("Only SHIPPED orders can be marked as delivered");
+    @Transactional
+    public List<OrderTransitionResult> transitionOrders(OrderTransition transition, List<Long> ids) {
+        if (ids.isEmpty() || ids.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException(String.format("Batch must contain between 1 and %s orders", MAX_BATCH_SIZE));
         }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Order ids must not be null");
+        }
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        Map<Long, OrderStockView> orders = orderRepository.findStockViewsForUpdate(requested).stream()
+                .collect(Collectors.toMap(OrderStockView::id, Function.identity()));
 
-        stockService.increaseStock(order.getProduct().getId(), order.getStore().getId(), order.getQuantity());
+        Map<Long, OrderTransitionResult> results = new HashMap<>();
+        Map<Long, OrderStockView> eligible = new LinkedHashMap<>();
+        for (Long id : requested) {
+            OrderStockView order = orders.get(id);
+            if (order == null) {
+                results.put(id, OrderTransitionResult.failed(id, String.format("Order with id %s not found", id)));
+            } else if (!transition.from().contains(order.status())) {
+                results.put(id, OrderTransitionResult.failed(id, String.format(
+                        "Cannot %s order in status %s", transition.name().toLowerCase(), order.status())));
+            } else {
+                eligible.put(id, order);
+            }
+        }
+        if (transition == OrderTransition.SHIP && !eligible.isEmpty()) {
+            for (Long id : stockService.decreaseStockForOrders(stockDemands(eligible.values()))) {
+                results.put(id, OrderTransitionResult.failed(id, "Not enough stock to ship order"));
+                eligible.remove(id);
+            }
+        }
+        if (!eligible.isEmpty()) {
+            if (orderRepository.updateStatuses(eligible.keySet(), transition.from(), transition.to()) != eligible.size()) {
+                throw new IllegalStateException("Orders changed while locked");
+            }
+            eligible.values().stream()
+                    .collect(Collectors.groupingBy(OrderStockView::status, Collectors.counting()))
+                    .forEach((from, count) -> orderMetrics.transition(from, transition.to(), count));
+            eligible.keySet().forEach(id -> results.put(id, OrderTransitionResult.succeeded(id, transition.to())));
+        }
+        return requested.stream().map(results::get).toList();
+    }
 
-        order.setStatus(OrderStatus.RECEIVED);
-        return orderRepository.save(order);
+    /**
+     * Stock each order needs, keyed by order id in id order; lines of multi-line orders are read in one query.
+     */
+    private Map<Long, List<StockQuantity>> stockDemands(Collection<OrderStockView> orders) {
+        Map<Long, List<StockQuantity>> demands = new TreeMap<>();
+        Map<Long, Long> multiLine = new HashMap<>();
+        for (OrderStockView order : orders) {
+            if (order.productId() != null) {
+                demands.put(order.id(), List.of(new StockQuantity(order.productId(), order.storeId(), order.quantity())));
+            } else {
+                demands.put(order.id(), new ArrayList<>());
+                multiLine.put(order.id(), order.storeId());
+            }
+        }
+        if (!multiLine.isEmpty()) {
+            for (OrderLineQuantity line : orderLineRepository.findQuantitiesByOrderIds(multiLine.keySet())) {
+                demands.get(line.orderId()).add(new StockQuantity(
+                        line.productId(), multiLine.get(line.orderId()), Math.toIntExact(line.quantity())));
+            }
+        }
+        return demands;
+    }
+
+    private OrderStatus getOrderStatus(Long id) {
+        return orderRepository.findStatusById(id)
+                .orElseThrow(() -> new NoSuchElementException(String.format("Order with id %s not found", id)));
+    }
+
+    /**
+     * Compare-and-set of the status in a single update. The updated row stays locked until commit,
+     * so a concurrent transition of the same order waits and then finds the status changed.
+     */
+    private void transition(Long id, OrderStatus from, OrderStatus to, String error) {
+        if (orderRepository.updateStatus(id, from, to) == 0) {
+            getOrderStatus(id);
+            throw new IllegalStateException(error);
+        }
     }
 }
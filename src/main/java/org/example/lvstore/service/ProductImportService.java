@@ -0,0 +1,227 @@
+package org.example.lvstore.service;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.example.lvstore.entity.Product;
+import org.example.lvstore.payload.product.CreateProductRequest;
+import org.example.lvstore.payload.product.ProductImportReport;
+import org.example.lvstore.repository.ProductRepository;
+import org.example.lvstore.service.cache.ProductCatalogCache;
+import org.example.lvstore.service.imports.CsvReader;
+import org.example.lvstore.service.search.ProductSearchIndex;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Imports a product catalogue from CSV with a {@code name,category,barcode,price,description} header
+ * (any column order; category and description are optional). Rows are upserted by barcode in chunks of
+ * {@link #CHUNK_SIZE}: one {@code IN} lookup and one batched save per chunk, each in its own transaction,
+ * after which the persistence context is cleared, so memory stays bounded by the chunk size. Duplicates are
+ * detected within a chunk only: a barcode repeated in a later chunk is upserted again and counted as updated.
+ * <p>
+ * Rows with a missing or malformed value, or one longer than its column allows, are skipped and reported.
+ * <p>
+ * A record that cannot be read (an unterminated quote, or longer than {@link #MAX_RECORD_LENGTH}) stops the
+ * import: the rows before it are saved and the report names the line, since earlier chunks are already committed.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductImportService {
+
+    public static final int CHUNK_SIZE = 500;
+    public static final int MAX_REPORTED_ERRORS = 100;
+    public static final int MAX_RECORD_LENGTH = 64 * 1024;
+    public static final int MAX_NAME_LENGTH = 100;
+    public static final int MAX_CATEGORY_LENGTH = 50;
+    public static final int MAX_BARCODE_LENGTH = 50;
+    /** Largest value that fits {@code NUMERIC(10, 2)}. */
+    public static final double MAX_PRICE = 99_999_999.99;
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("name", "barcode", "price");
+
+    private final ProductRepository productRepository;
+    private final ProductCatalogCache productCatalogCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final TransactionOperations transactionOperations;
+    private final EntityManager entityManager;
+
+    public ProductImportReport importProducts(InputStream in) throws IOException {
+        try (CsvReader csv = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8), MAX_RECORD_LENGTH)) {
+            List<String> header = csv.next();
+            if (header == null) {
+                throw new IllegalArgumentException("CSV file is empty");
+            }
+            Map<String, Integer> columns = columns(header);
+
+            Tally tally = new Tally();
+            Map<String, CreateProductRequest> chunk = new LinkedHashMap<>();
+            List<String> record;
+            while ((record = next(csv, tally)) != null) {
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                tally.rows++;
+                CreateProductRequest row;
+                try {
+                    row = parse(record, columns);
+                } catch (IllegalArgumentException e) {
+                    tally.skip(String.format("Line %s: %s", csv.recordLine(), e.getMessage()));
+                    continue;
+                }
+                if (chunk.put(row.barcode(), row) != null) {
+                    tally.duplicates++;
+                }
+                if (chunk.size() == CHUNK_SIZE) {
+                    upsert(chunk, tally);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                upsert(chunk, tally);
+            }
+            return tally.report();
+        }
+    }
+
+    private static List<String> next(CsvReader csv, Tally tally) throws IOException {
+        try {
+            return csv.next();
+        } catch (IllegalArgumentException e) {
+            tally.fail(csv.recordLine(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void upsert(Map<String, CreateProductRequest> rows, Tally tally) {
+        List<Product> saved = transactionOperations.execute(status -> {
+            Map<String, Product> existing = productRepository.findByBarcodeIn(rows.keySet()).stream()
+                    .collect(Collectors.toMap(Product::getBarcode, Function.identity()));
+
+            List<Product> products = new ArrayList<>(rows.size());
+            for (CreateProductRequest row : rows.values()) {
+                if (existing.containsKey(row.barcode())) {
+                    tally.updated++;
+                } else {
+                    tally.created++;
+                }
+                Product product = existing.getOrDefault(row.barcode(), Product.builder().barcode(row.barcode()).build());
+                product.setName(row.name());
+                product.setCategory(row.category());
+                product.setPrice(row.price());
+                product.setDescription(row.description());
+                products.add(product);
+            }
+            productRepository.saveAll(products);
+            entityManager.flush();
+            entityManager.clear();
+            return products;
+        });
+        for (Product product : saved) {
+            productCatalogCache.evict(product.getId());
+            productSearchIndex.index(product);
+        }
+    }
+
+    private static Map<String, Integer> columns(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException(String.format("CSV header is missing column %s", column));
+            }
+        }
+        return columns;
+    }
+
+    private static CreateProductRequest parse(List<String> record, Map<String, Integer> columns) {
+        String name = field(record, columns, "name");
+        String barcode = field(record, columns, "barcode");
+        String price = field(record, columns, "price");
+        if (name == null) {
+            throw new IllegalArgumentException("name is required");
+        }
+        if (barcode == null) {
+            throw new IllegalArgumentException("barcode is required");
+        }
+        if (price == null) {
+            throw new IllegalArgumentException("price is required");
+        }
+        String category = field(record, columns, "category");
+        checkLength("name", name, MAX_NAME_LENGTH);
+        checkLength("category", category, MAX_CATEGORY_LENGTH);
+        checkLength("barcode", barcode, MAX_BARCODE_LENGTH);
+
+        double parsedPrice;
+        try {
+            parsedPrice = Double.parseDouble(price);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("price %s is not a number", price));
+        }
+        if (parsedPrice < 0) {
+            throw new IllegalArgumentException(String.format("price %s is negative", price));
+        }
+        if (parsedPrice > MAX_PRICE) {
+            throw new IllegalArgumentException(String.format(Locale.ROOT, "price %s is larger than %.2f", price, MAX_PRICE));
+        }
+        return new CreateProductRequest(name, category, barcode, parsedPrice,
+                field(record, columns, "description"));
+    }
+
+    private static void checkLength(String column, String value, int maxLength) {
+        if (value != null && value.length() > maxLength) {
+            throw new IllegalArgumentException(String.format("%s is longer than %s characters", column, maxLength));
+        }
+    }
+
+    private static String field(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static final class Tally {
+        private long rows;
+        private long created;
+        private long updated;
+        private long duplicates;
+        private long skipped;
+        private final List<String> errors = new ArrayList<>();
+        private Long failedAtLine;
+        private String failure;
+
+        private void skip(String error) {
+            skipped++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(error);
+            }
+        }
+
+        private void fail(long line, String error) {
+            failedAtLine = line;
+            failure = error;
+        }
+
+        private ProductImportReport report() {
+            return new ProductImportReport(rows, created, updated, duplicates, skipped, List.copyOf(errors),
+                    failedAtLine, failure);
+        }
+    }
+}
@@ -2,27 +2,64 @@ package org.example.lvstore.service;
 
 import lombok.RequiredArgsConstructor;
 import org.example.lvstore.entity.Product;
+import org.example.lvstore.payload.page.CursorPage;
 import org.example.lvstore.payload.product.CreateProductRequest;
+import org.example.lvstore.payload.product.ProductCacheStats;
 import org.example.lvstore.payload.product.UpdateProductRequest;
 import org.example.lvstore.repository.ProductRepository;
+import org.example.lvstore.repository.StockMovementRepository;
+import org.example.lvstore.service.cache.ProductCatalogCache;
+import org.example.lvstore.service.search.ProductSearchIndex;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 
+/**
+ * Writes update the product cache and search index only once their transaction commits,
+ * so a rollback leaves neither a ghost entry nor a missing one.
+ */
 @Service
 @RequiredArgsConstructor
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final ProductCatalogCache productCatalogCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final StockMovementRepository stockMovementRepository;
 
     public Product getProductById(Long id) {
-        return productRepository.findById(id)
-                .orElseThrow(() -> new NoSuchElementException(String.format("Product with id %s not found", id)));
+        return productCatalogCache.getById(id)
+                .orElseGet(() -> cache(findProductById(id)));
+    }
+
+    /**
+     * Resolves many ids at once: cached products are served from memory, the rest
+     * are loaded with a single {@code IN} query and cached. Unknown ids are absent from the map.
+     */
+    public Map<Long, Product> getProductsByIds(Collection<Long> ids) {
+        Map<Long, Product> products = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : ids) {
+            productCatalogCache.getById(id).ifPresentOrElse(product -> products.put(id, product), () -> misses.add(id));
+        }
+        if (!misses.isEmpty()) {
+            productRepository.findAllById(misses).forEach(product -> products.put(product.getId(), cache(product)));
+        }
+        return products;
     }
 
+    @Transactional
     public Product createProduct(CreateProductRequest request) {
-        if (productRepository.existsByBarcode(request.barcode())) {
+        if (barcodeExists(request.barcode())) {
             throw new IllegalArgumentException(String.format("Product with barcode %s already exists", request.barcode()));
         }
 
@@ -34,23 +71,33 @@ public class ProductService {
                 .description(request.description())
                 .build();
 
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        afterCommit(() -> {
+            cache(saved);
+            productSearchIndex.index(saved);
+        });
+        return saved;
     }
 
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    public CursorPage<Product> getProducts(Long after, Integer limit) {
+        int pageSize = CursorPage.pageSize(limit);
+        List<Product> rows = productRepository.findByIdGreaterThanOrderByIdAsc(CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(rows, pageSize, Product::getId);
     }
 
     public Product getProductByBarcode(String barcode) {
-        return productRepository.findByBarcode(barcode)
-                .orElseThrow(() -> new NoSuchElementException(String.format("Product with barcode '%s' not found", barcode)));
+        return productCatalogCache.getByBarcode(barcode)
+                .orElseGet(() -> cache(productRepository.findByBarcode(barcode)
+                        .orElseThrow(() -> new NoSuchElementException(String.format("Product with barcode '%s' not found", barcode)))));
     }
 
+    @Transactional
     public Product updateProduct(UpdateProductRequest request) {
-        Product product = getProductById(request.id());
+        // Read past the cache: the cached instance is shared and must not be mutated in place.
+        Product product = findProductById(request.id());
 
         if (!product.getBarcode().equals(request.barcode()) &&
-                productRepository.existsByBarcode(request.barcode())) {
+                barcodeExists(request.barcode())) {
             throw new IllegalArgumentException(String.format("Product with barcode %s already exists", request.barcode()));
         }
 
@@ -60,10 +107,65 @@ public class ProductService {
         product.setPrice(request.price());
         product.setDescription(request.description());
 
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        afterCommit(() -> {
+            productCatalogCache.evict(saved.getId());
+            cache(saved);
+            productSearchIndex.index(saved);
+        });
+        return saved;
     }
 
+    /**
+     * The product's stock rows go with it by cascade; they are written off in the stock ledger first.
+     */
+    @Transactional
     public void deleteProduct(Long id) {
+        stockMovementRepository.recordProductRemoval(id);
         productRepository.deleteById(id);
+        afterCommit(() -> {
+            productCatalogCache.evict(id);
+            productSearchIndex.remove(id);
+        });
+    }
+
+    public List<Product> searchProducts(String query, Integer limit) {
+        List<Long> ids = productSearchIndex.search(query, limit);
+        Map<Long, Product> products = getProductsByIds(ids);
+        return ids.stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    public ProductCacheStats getCacheStats() {
+        return productCatalogCache.stats();
+    }
+
+    private Product findProductById(Long id) {
+        return productRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException(String.format("Product with id %s not found", id)));
+    }
+
+    private boolean barcodeExists(String barcode) {
+        return productCatalogCache.containsBarcode(barcode) || productRepository.existsByBarcode(barcode);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private Product cache(Product product) {
+        productCatalogCache.put(product);
+        return product;
     }
 }
@@ -0,0 +1,145 @@
+package org.example.lvstore.service;
+
+import org.example.lvstore.config.DatabasePlatform;
+import org.example.lvstore.entity.StockSnapshot;
+import org.example.lvstore.payload.stock.StockQuantity;
+import org.example.lvstore.repository.StockMovementRepository;
+import org.example.lvstore.repository.StockRepository;
+import org.example.lvstore.repository.StockSnapshotRepository;
+import org.example.lvstore.repository.StoreRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Answers "what was the stock of a store at time T" from the stock movement ledger. Periodic per-store
+ * snapshots bound the replay: the quantity at T is the latest snapshot at or before T plus the movements
+ * after it, one index range read each.
+ * <p>
+ * Snapshots are themselves replayed from the previous snapshot and the ledger, never read from the live
+ * stock table, and are taken at the time up to which the ledger is complete (see
+ * {@link StockMovementRepository#findSettledUntil}), so a transaction still in flight cannot be left out.
+ * A store's first snapshot starts from its current stock minus the movements since, read from one
+ * repeatable-read view. On several nodes, a store is snapshotted by one of them at a time, and a node
+ * skips stores another one snapshotted less than half an interval ago. The job only runs on PostgreSQL,
+ * whose activity view and advisory locks it relies on.
+ */
+@Service
+public class StockHistoryService {
+
+    /**
+     * First key of the per-store advisory lock held while snapshotting; the second one is the store id.
+     */
+    public static final int SNAPSHOT_LOCK = 25;
+
+    private final StockSnapshotRepository stockSnapshotRepository;
+    private final StockMovementRepository stockMovementRepository;
+    private final StockRepository stockRepository;
+    private final StoreRepository storeRepository;
+    private final DatabasePlatform databasePlatform;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration interval;
+
+    public StockHistoryService(StockSnapshotRepository stockSnapshotRepository,
+                               StockMovementRepository stockMovementRepository,
+                               StockRepository stockRepository,
+                               StoreRepository storeRepository,
+                               DatabasePlatform databasePlatform,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${lvstore.stock-history.snapshot-interval:1h}") Duration interval) {
+        this.stockSnapshotRepository = stockSnapshotRepository;
+        this.stockMovementRepository = stockMovementRepository;
+        this.stockRepository = stockRepository;
+        this.storeRepository = storeRepository;
+        this.databasePlatform = databasePlatform;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.interval = interval;
+    }
+
+    /**
+     * Snapshots every store, one transaction per store.
+     *
+     * @return the number of snapshot rows written, 0 when the database is not PostgreSQL
+     */
+    @Scheduled(fixedDelayString = "${lvstore.stock-history.snapshot-interval:1h}")
+    public long takeSnapshots() {
+        if (!databasePlatform.isPostgres()) {
+            return 0;
+        }
+        // read before the snapshot transactions start, so their view includes everything up to it
+        LocalDateTime takenAt = stockMovementRepository.findSettledUntil();
+        long rows = 0;
+        for (Long storeId : storeRepository.findAllIds()) {
+            rows += transactionTemplate.execute(tx -> takeSnapshot(storeId, takenAt));
+        }
+        return rows;
+    }
+
+    /**
+     * @return quantity per product the store held at {@code at}; products it held none of are left out
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public List<StockQuantity> getStockAsOf(Long storeId, LocalDateTime at) {
+        return replay(storeId, at).entrySet().stream()
+                .filter(entry -> entry.getValue() != 0)
+                .map(entry -> new StockQuantity(entry.getKey(), storeId, entry.getValue()))
+                .sorted(Comparator.comparing(StockQuantity::productId))
+                .toList();
+    }
+
+    private int takeSnapshot(Long storeId, LocalDateTime takenAt) {
+        if (!stockSnapshotRepository.tryLock(SNAPSHOT_LOCK, storeId)) {
+            return 0;
+        }
+        Optional<LocalDateTime> latest = stockSnapshotRepository.findLatestTakenAt(storeId);
+        if (latest.isPresent() && latest.get().isAfter(takenAt.minus(interval.dividedBy(2)))) {
+            return 0;
+        }
+        List<StockSnapshot> rows = replay(storeId, takenAt).entrySet().stream()
+                .filter(entry -> entry.getValue() != 0)
+                .map(entry -> StockSnapshot.builder()
+                        .storeId(storeId)
+                        .takenAt(takenAt)
+                        .productId(entry.getKey())
+                        .quantity(entry.getValue())
+                        .build())
+                .toList();
+        stockSnapshotRepository.saveAll(rows);
+        return rows.size();
+    }
+
+    /**
+     * Quantity per product at {@code at}: the latest snapshot plus the movements since, or, before the
+     * store's first snapshot, the current stock minus the movements after {@code at}.
+     */
+    private Map<Long, Integer> replay(Long storeId, LocalDateTime at) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        Optional<LocalDateTime> latest = stockSnapshotRepository.findLatestTakenAt(storeId, at);
+        if (latest.isPresent()) {
+            stockSnapshotRepository.findByStoreIdAndTakenAt(storeId, latest.get())
+                    .forEach(row -> quantities.put(row.getProductId(), row.getQuantity()));
+            stockMovementRepository.findDeltas(storeId, latest.get(), at)
+                    .forEach(delta -> quantities.merge(delta.productId(), delta.quantity(), Integer::sum));
+        } else {
+            stockRepository.findQuantitiesByStoreId(storeId)
+                    .forEach(stock -> quantities.put(stock.productId(), stock.quantity()));
+            stockMovementRepository.findDeltasAfter(storeId, at)
+                    .forEach(delta -> quantities.merge(delta.productId(), -delta.quantity(), Integer::sum));
+        }
+        return quantities;
+    }
+}
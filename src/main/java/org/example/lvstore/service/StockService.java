@@ -3,28 +3,57 @@ package org.example.lvstore.service;
 import lombok.RequiredArgsConstructor;
 import org.example.lvstore.entity.Product;
 import org.example.lvstore.entity.Stock;
+import org.example.lvstore.entity.StockMovement;
 import org.example.lvstore.entity.Store;
+import org.example.lvstore.payload.page.CursorPage;
 import org.example.lvstore.payload.stock.CreateStockRequest;
+import org.example.lvstore.payload.stock.StockQuantity;
+import org.example.lvstore.payload.stock.StockView;
 import org.example.lvstore.payload.stock.UpdateStockRequest;
+import org.example.lvstore.repository.OrderLineRepository;
+import org.example.lvstore.repository.StockMovementRepository;
 import org.example.lvstore.repository.StockRepository;
+import org.example.lvstore.service.enums.StockMovementReason;
+import org.example.lvstore.service.export.NdjsonExporter;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class StockService {
 
     private final StockRepository stockRepository;
+    private final OrderLineRepository orderLineRepository;
+    private final StockMovementRepository stockMovementRepository;
     private final ProductService productService;
     private final StoreService storeService;
+    private final NdjsonExporter ndjsonExporter;
+
+    public StockView getStockViewById(Long id) {
+        return stockRepository.findViewById(id)
+                .orElseThrow(() -> new NoSuchElementException(String.format("Stock with id %s not found", id)));
+    }
 
     public Stock getStockById(Long id) {
         return stockRepository.findById(id)
                 .orElseThrow(() -> new NoSuchElementException(String.format("Stock with id %s not found", id)));
     }
 
+    @Transactional
     public Stock createStock(CreateStockRequest request) {
         Product product = productService.getProductById(request.productId());
         Store store = storeService.getStoreById(request.storeId());
@@ -36,15 +65,34 @@ public class StockService {
                 .minQuantity(request.minQuantity())
                 .build();
 
-        return stockRepository.save(stock);
+        Stock saved = stockRepository.save(stock);
+        record(List.of(movement(product.getId(), store.getId(), saved.getQuantity(), StockMovementReason.CREATED)));
+        return saved;
     }
 
-    public List<Stock> getAllStocks() {
-        return stockRepository.findAll();
+    public CursorPage<StockView> getStocks(Long after, Integer limit) {
+        int pageSize = CursorPage.pageSize(limit);
+        List<StockView> rows = stockRepository.findViewsAfter(CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(rows, pageSize, StockView::id);
     }
 
+    @Transactional(readOnly = true)
+    public long exportStocks(OutputStream out) throws IOException {
+        try (Stream<Stock> rows = stockRepository.streamAllForExport()) {
+            return ndjsonExporter.write(rows, out);
+        }
+    }
+
+    /**
+     * A quantity change is logged as one movement; moving the row to another product or store as two.
+     */
+    @Transactional
     public Stock updateStock(UpdateStockRequest request) {
         Stock stock = getStockById(request.id());
+        if (request.version() != null && !request.version().equals(stock.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Stock.class, request.id());
+        }
+        StockMovement removed = movement(stock.getProduct().getId(), stock.getStore().getId(), -stock.getQuantity(), StockMovementReason.UPDATED);
 
         Product product = productService.getProductById(request.productId());
         Store store = storeService.getStoreById(request.storeId());
@@ -54,47 +102,188 @@ public class StockService {
         stock.setQuantity(request.quantity());
         stock.setMinQuantity(request.minQuantity());
 
-        return stockRepository.save(stock);
+        Stock saved = stockRepository.save(stock);
+        StockMovement added = movement(product.getId(), store.getId(), saved.getQuantity(), StockMovementReason.UPDATED);
+        if (removed.getProductId().equals(added.getProductId()) && removed.getStoreId().equals(added.getStoreId())) {
+            added.setDelta(added.getDelta() + removed.getDelta());
+            record(List.of(added));
+        } else {
+            record(List.of(removed, added));
+        }
+        return saved;
     }
 
+    @Transactional
     public void deleteStock(Long id) {
-        stockRepository.deleteById(id);
+        stockRepository.findById(id).ifPresent(stock -> {
+            stockRepository.delete(stock);
+            record(List.of(movement(stock.getProduct().getId(), stock.getStore().getId(), -stock.getQuantity(), StockMovementReason.DELETED)));
+        });
     }
 
-    public List<Stock> getStocksByStoreId(Long storeId) {
-        return stockRepository.findByStoreId(storeId);
+    public CursorPage<StockView> getStocksByStoreId(Long storeId, Long after, Integer limit) {
+        int pageSize = CursorPage.pageSize(limit);
+        List<StockView> rows = stockRepository.findViewsByStoreIdAfter(storeId, CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(rows, pageSize, StockView::id);
     }
 
-    public List<Stock> getStocksByProductId(Long productId) {
-        return stockRepository.findByProductId(productId);
+    public CursorPage<StockView> getStocksByProductId(Long productId, Long after, Integer limit) {
+        int pageSize = CursorPage.pageSize(limit);
+        List<StockView> rows = stockRepository.findViewsByProductIdAfter(productId, CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(rows, pageSize, StockView::id);
     }
 
-    public List<Stock> getCriticalStocksByStoreId(Long storeId) {
-        return stockRepository.findByStoreId(storeId).stream()
-                .filter(stock -> stock.getQuantity() <= stock.getMinQuantity())
-                .toList();
+    public CursorPage<StockView> getCriticalStocks(Long after, Integer limit) {
+        int pageSize = CursorPage.pageSize(limit);
+        List<StockView> rows = stockRepository.findCriticalViewsAfter(CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(rows, pageSize, StockView::id);
     }
 
-    public boolean isInStock(Long productId, Long storeId, Integer quantity) {
-        Stock stock = getStockByProductIdAndStoreId(productId, storeId);
-        return stock.getQuantity() >= quantity;
+    public CursorPage<StockView> getCriticalStocksByStoreId(Long storeId, Long after, Integer limit) {
+        int pageSize = CursorPage.pageSize(limit);
+        List<StockView> rows = stockRepository.findCriticalViewsByStoreIdAfter(storeId, CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(rows, pageSize, StockView::id);
     }
 
-    private Stock getStockByProductIdAndStoreId(Long productId, Long storeId) {
-        return stockRepository.findByProductIdAndStoreId(productId, storeId)
-                .orElseThrow(() -> new NoSuchElementException(String.format("Stock with productId %s and storeId %s not found", productId, storeId)));
+    /**
+     * Takes {@code quantity} units off the shelf in a single conditional UPDATE.
+     *
+     * @return {@code false} if the store holds fewer than {@code quantity} units; nothing is changed then
+     */
+    public boolean decreaseStock(Long productId, Long storeId, Integer quantity) {
+        if (stockRepository.decreaseQuantity(productId, storeId, quantity) > 0) {
+            record(List.of(movement(productId, storeId, -quantity, StockMovementReason.ORDER_SHIPPED)));
+            return true;
+        }
+        requireStockExists(productId, storeId);
+        return false;
     }
 
-    public void decreaseStock(Long productId, Long storeId, Integer quantity) {
-        Stock stock = getStockByProductIdAndStoreId(productId, storeId);
-        stock.setQuantity(stock.getQuantity() - quantity);
-        stockRepository.save(stock);
+    public void increaseStock(Long productId, Long storeId, Integer quantity) {
+        if (stockRepository.increaseQuantity(productId, storeId, quantity) == 0) {
+            throw stockNotFound(productId, storeId);
+        }
+        record(List.of(movement(productId, storeId, quantity, StockMovementReason.ORDER_RECEIVED)));
     }
 
-    public void increaseStock(Long productId, Long storeId, Integer quantity) {
-        Stock stock = getStockByProductIdAndStoreId(productId, storeId);
-        stock.setQuantity(stock.getQuantity() + quantity);
-        stockRepository.save(stock);
+    /**
+     * Takes all lines of a multi-line order off the store's shelves in one set-based UPDATE.
+     * Must run inside the caller's transaction: when it returns {@code false} the products that were
+     * in stock have already been decreased, and the caller rolls that back by failing.
+     *
+     * @return {@code false} if any product of the order is understocked or not stocked in the store
+     */
+    public boolean decreaseStockForOrder(Long orderId, Long storeId) {
+        long products = orderLineRepository.countProductsByOrderId(orderId);
+        if (stockRepository.decreaseQuantitiesForOrder(orderId, storeId) != products) {
+            return false;
+        }
+        recordOrderLines(orderId, storeId, -1, StockMovementReason.ORDER_SHIPPED);
+        return true;
+    }
+
+    /**
+     * Puts all lines of a multi-line order back on the store's shelves in one UPDATE; fails, to be
+     * rolled back by the caller, if a product is not stocked in the store.
+     */
+    public void increaseStockForOrder(Long orderId, Long storeId) {
+        long products = orderLineRepository.countProductsByOrderId(orderId);
+        if (stockRepository.increaseQuantitiesForOrder(orderId, storeId) != products) {
+            throw new NoSuchElementException(String.format("Stock for order %s not found in store %s", orderId, storeId));
+        }
+        recordOrderLines(orderId, storeId, 1, StockMovementReason.ORDER_RECEIVED);
+    }
+
+    /**
+     * Takes the stock needed by several orders with one conditional UPDATE per (product, store).
+     * The stock rows are locked when read, so the allocation holds until commit. Orders are served
+     * in the map's iteration order while stock lasts; an order that does not fit, or needs a product
+     * the store does not stock, is skipped as a whole. Must run inside the caller's transaction.
+     *
+     * @param demands per order id, what it needs; each (product, store) at most once per order
+     * @return ids of the skipped orders
+     * @throws ConcurrencyFailureException if the stock changed while the orders were being allocated
+     */
+    public Set<Long> decreaseStockForOrders(Map<Long, List<StockQuantity>> demands) {
+        Set<Long> productIds = new HashSet<>();
+        Set<Long> storeIds = new HashSet<>();
+        demands.values().forEach(quantities -> quantities.forEach(quantity -> {
+            productIds.add(quantity.productId());
+            storeIds.add(quantity.storeId());
+        }));
+        Map<Shelf, Integer> available = new HashMap<>();
+        for (StockQuantity stock : stockRepository.findQuantitiesForUpdate(productIds, storeIds)) {
+            available.put(new Shelf(stock.productId(), stock.storeId()), stock.quantity());
+        }
+
+        Set<Long> skipped = new HashSet<>();
+        Map<Shelf, Integer> taken = new LinkedHashMap<>();
+        for (Map.Entry<Long, List<StockQuantity>> order : demands.entrySet()) {
+            boolean fits = order.getValue().stream().allMatch(quantity ->
+                    available.getOrDefault(new Shelf(quantity.productId(), quantity.storeId()), 0) >= quantity.quantity());
+            if (!fits) {
+                skipped.add(order.getKey());
+                continue;
+            }
+            for (StockQuantity quantity : order.getValue()) {
+                Shelf shelf = new Shelf(quantity.productId(), quantity.storeId());
+                available.merge(shelf, -quantity.quantity(), Integer::sum);
+                taken.merge(shelf, quantity.quantity(), Integer::sum);
+            }
+        }
+
+        List<StockMovement> movements = new ArrayList<>();
+        taken.forEach((shelf, quantity) -> {
+            if (stockRepository.decreaseQuantity(shelf.productId(), shelf.storeId(), quantity) == 0) {
+                throw new ConcurrencyFailureException(String.format(
+                        "Stock of product %s in store %s changed concurrently", shelf.productId(), shelf.storeId()));
+            }
+            movements.add(movement(shelf.productId(), shelf.storeId(), -quantity, StockMovementReason.ORDER_SHIPPED));
+        });
+        record(movements);
+        return skipped;
+    }
+
+    private void recordOrderLines(Long orderId, Long storeId, int sign, StockMovementReason reason) {
+        record(orderLineRepository.findQuantitiesByOrderIds(List.of(orderId)).stream()
+                .map(line -> movement(line.productId(), storeId, sign * Math.toIntExact(line.quantity()), reason))
+                .toList());
+    }
+
+    /**
+     * Appends to the ledger in the caller's transaction; the rows go out as one JDBC batch.
+     */
+    private void record(List<StockMovement> movements) {
+        List<StockMovement> changes = movements.stream().filter(movement -> movement.getDelta() != 0).toList();
+        if (!changes.isEmpty()) {
+            stockMovementRepository.saveAll(changes);
+        }
+    }
+
+    /**
+     * Stamped after the stock UPDATE has taken its row locks, so a movement never predates a snapshot
+     * that did not see it.
+     */
+    private static StockMovement movement(Long productId, Long storeId, int delta, StockMovementReason reason) {
+        return StockMovement.builder()
+                .productId(productId)
+                .storeId(storeId)
+                .delta(delta)
+                .reason(reason)
+                .build();
+    }
+
+    private record Shelf(Long productId, Long storeId) {
+    }
+
+    private void requireStockExists(Long productId, Long storeId) {
+        if (!stockRepository.existsByProductIdAndStoreId(productId, storeId)) {
+            throw stockNotFound(productId, storeId);
+        }
+    }
+
+    private NoSuchElementException stockNotFound(Long productId, Long storeId) {
+        return new NoSuchElementException(String.format("Stock with productId %s and storeId %s not found", productId, storeId));
     }
 
 }
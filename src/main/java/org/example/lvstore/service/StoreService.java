@@ -3,13 +3,20 @@ package org.example.lvstore.service;
 import lombok.RequiredArgsConstructor;
 import org.example.lvstore.entity.Store;
 import org.example.lvstore.entity.User;
+import org.example.lvstore.payload.page.CursorPage;
 import org.example.lvstore.payload.store.CreateStoreRequest;
 import org.example.lvstore.payload.store.UpdateStoreRequest;
+import org.example.lvstore.repository.StockMovementRepository;
 import org.example.lvstore.repository.StoreRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -17,12 +24,18 @@ public class StoreService {
 
     private final StoreRepository storeRepository;
     private final UserService userService;
+    private final StockMovementRepository stockMovementRepository;
 
     public Store getStoreById(Long id) {
         return storeRepository.findById(id)
                 .orElseThrow(() -> new NoSuchElementException(String.format("Store with id %s not found", id)));
     }
 
+    public Map<Long, Store> getStoresByIds(Collection<Long> ids) {
+        return storeRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Store::getId, Function.identity()));
+    }
+
     public Store createStore(CreateStoreRequest request) {
         User admin = userService.getUserById(request.adminId());
 
@@ -35,8 +48,10 @@ public class StoreService {
         return storeRepository.save(store);
     }
 
-    public List<Store> getAllStores() {
-        return storeRepository.findAll();
+    public CursorPage<Store> getStores(Long after, Integer limit) {
+        int pageSize = CursorPage.pageSize(limit);
+        List<Store> rows = storeRepository.findByIdGreaterThanOrderByIdAsc(CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(rows, pageSize, Store::getId);
     }
 
     public Store updateStore(UpdateStoreRequest request) {
@@ -51,7 +66,12 @@ public class StoreService {
         return storeRepository.save(store);
     }
 
+    /**
+     * The store's stock rows go with it by cascade; they are written off in the stock ledger first.
+     */
+    @Transactional
     public void deleteStore(Long id) {
+        stockMovementRepository.recordStoreRemoval(id);
         storeRepository.deleteById(id);
     }
 }
\ No newline at end of file
@@ -2,14 +2,19 @@ package org.example.lvstore.service;
 
 import lombok.RequiredArgsConstructor;
 import org.example.lvstore.entity.User;
+import org.example.lvstore.payload.page.CursorPage;
 import org.example.lvstore.payload.user.CreateUserRequest;
 import org.example.lvstore.payload.user.UpdateUserRequest;
 import org.example.lvstore.repository.UserRepository;
 import org.example.lvstore.service.enums.Role;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -22,6 +27,11 @@ public class UserService {
                 .orElseThrow(() -> new NoSuchElementException(String.format("User with id %s not found", id)));
     }
 
+    public Map<Long, User> getUsersByIds(Collection<Long> ids) {
+        return userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+    }
+
     public User createUser(CreateUserRequest createUserRequest) {
         if (userRepository.existsByUsername(createUserRequest.username())) {
             throw new IllegalArgumentException(String.format("Username %s already exists", createUserRequest.username()));
@@ -45,8 +55,10 @@ public class UserService {
         return getUserByEmail(createUserRequest.email());
     }
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public CursorPage<User> getUsers(Long after, Integer limit) {
+        int pageSize = CursorPage.pageSize(limit);
+        List<User> rows = userRepository.findByIdGreaterThanOrderByIdAsc(CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(rows, pageSize, User::getId);
     }
 
     public User getUserByUsername(String username) {
@@ -3,6 +3,7 @@ package org.example.lvstore.service;
 import lombok.RequiredArgsConstructor;
 import org.example.lvstore.entity.User;
 import org.example.lvstore.entity.Warehouse;
+import org.example.lvstore.payload.page.CursorPage;
 import org.example.lvstore.payload.warehouse.CreateWarehouseRequest;
 import org.example.lvstore.payload.warehouse.UpdateWarehouseRequest;
 import org.example.lvstore.repository.WarehouseRepository;
@@ -35,8 +36,10 @@ public class WarehouseService {
         return warehouseRepository.save(warehouse);
     }
 
-    public List<Warehouse> getAllWarehouses() {
-        return warehouseRepository.findAll();
+    public CursorPage<Warehouse> getWarehouses(Long after, Integer limit) {
+        int pageSize = CursorPage.pageSize(limit);
+        List<Warehouse> rows = warehouseRepository.findByIdGreaterThanOrderByIdAsc(CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(rows, pageSize, Warehouse::getId);
     }
 
     public Warehouse updateWarehouse(UpdateWarehouseRequest request) {
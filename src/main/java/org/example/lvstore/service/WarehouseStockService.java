@@ -4,13 +4,21 @@ import lombok.RequiredArgsConstructor;
 import org.example.lvstore.entity.Product;
 import org.example.lvstore.entity.Warehouse;
 import org.example.lvstore.entity.WarehouseStock;
+import org.example.lvstore.payload.page.CursorPage;
 import org.example.lvstore.payload.warehousestock.CreateWarehouseStockRequest;
 import org.example.lvstore.payload.warehousestock.UpdateWarehouseStockRequest;
+import org.example.lvstore.payload.warehousestock.WarehouseStockView;
 import org.example.lvstore.repository.WarehouseStockRepository;
+import org.example.lvstore.service.export.NdjsonExporter;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -19,6 +27,13 @@ public class WarehouseStockService {
     private final WarehouseStockRepository warehouseStockRepository;
     private final WarehouseService warehouseService;
     private final ProductService productService;
+    private final NdjsonExporter ndjsonExporter;
+
+    public WarehouseStockView getWarehouseStockViewById(Long id) {
+        return warehouseStockRepository.findViewById(id)
+                .orElseThrow(() -> new NoSuchElementException(
+                        String.format("WarehouseStock with id %s not found", id)));
+    }
 
     public WarehouseStock getWarehouseStockById(Long id) {
         return warehouseStockRepository.findById(id)
@@ -39,12 +54,24 @@ public class WarehouseStockService {
         return warehouseStockRepository.save(warehouseStock);
     }
 
-    public List<WarehouseStock> getAllWarehouseStocks() {
-        return warehouseStockRepository.findAll();
+    public CursorPage<WarehouseStockView> getWarehouseStocks(Long after, Integer limit) {
+        int pageSize = CursorPage.pageSize(limit);
+        List<WarehouseStockView> rows = warehouseStockRepository.findViewsAfter(CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(rows, pageSize, WarehouseStockView::id);
+    }
+
+    @Transactional(readOnly = true)
+    public long exportWarehouseStocks(OutputStream out) throws IOException {
+        try (Stream<WarehouseStock> rows = warehouseStockRepository.streamAllForExport()) {
+            return ndjsonExporter.write(rows, out);
+        }
     }
 
     public WarehouseStock updateWarehouseStock(UpdateWarehouseStockRequest request) {
         WarehouseStock stock = getWarehouseStockById(request.id());
+        if (request.version() != null && !request.version().equals(stock.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(WarehouseStock.class, request.id());
+        }
 
         Warehouse warehouse = warehouseService.getWarehouseById(request.warehouseId());
         Product product = productService.getProductById(request.productId());
@@ -56,12 +83,16 @@ public class WarehouseStockService {
         return warehouseStockRepository.save(stock);
     }
 
-    public List<WarehouseStock> getWarehouseStocksByWarehouseId(Long warehouseId) {
-        return warehouseStockRepository.findByWarehouseId(warehouseId);
+    public CursorPage<WarehouseStockView> getWarehouseStocksByWarehouseId(Long warehouseId, Long after, Integer limit) {
+        int pageSize = CursorPage.pageSize(limit);
+        List<WarehouseStockView> rows = warehouseStockRepository.findViewsByWarehouseIdAfter(warehouseId, CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(rows, pageSize, WarehouseStockView::id);
     }
 
-    public List<WarehouseStock> getWarehouseStocksByProductId(Long productId) {
-        return warehouseStockRepository.findByProductId(productId);
+    public CursorPage<WarehouseStockView> getWarehouseStocksByProductId(Long productId, Long after, Integer limit) {
+        int pageSize = CursorPage.pageSize(limit);
+        List<WarehouseStockView> rows = warehouseStockRepository.findViewsByProductIdAfter(productId, CursorPage.startAfter(after), CursorPage.fetchLimit(pageSize));
+        return CursorPage.of(rows, pageSize, WarehouseStockView::id);
     }
 
     public void deleteWarehouseStock(Long id) {
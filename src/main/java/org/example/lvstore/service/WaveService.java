@@ -0,0 +1,96 @@
+package org.example.lvstore.service;
+
+import org.example.lvstore.payload.order.OrderTransitionResult;
+import org.example.lvstore.payload.order.OrderWave;
+import org.example.lvstore.payload.order.PickListLine;
+import org.example.lvstore.repository.OrderLineRepository;
+import org.example.lvstore.repository.OrderRepository;
+import org.example.lvstore.service.enums.OrderStatus;
+import org.example.lvstore.service.enums.OrderTransition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Plans shipping waves: the oldest confirmed orders, at most {@code lvstore.waves.max-orders} of them,
+ * with a pick list aggregated per (product, store) in the database. A wave is shipped through
+ * {@link OrderService#transitionOrders}, i.e. with one stock UPDATE per pick list line.
+ */
+@Service
+public class WaveService {
+
+    private final OrderRepository orderRepository;
+    private final OrderLineRepository orderLineRepository;
+    private final OrderService orderService;
+    private final int maxOrders;
+
+    public WaveService(OrderRepository orderRepository,
+                       OrderLineRepository orderLineRepository,
+                       OrderService orderService,
+                       @Value("${lvstore.waves.max-orders:200}") int maxOrders) {
+        if (maxOrders <= 0 || maxOrders > OrderService.MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException(String.format("Wave size must be between 1 and %s", OrderService.MAX_BATCH_SIZE));
+        }
+        this.orderRepository = orderRepository;
+        this.orderLineRepository = orderLineRepository;
+        this.orderService = orderService;
+        this.maxOrders = maxOrders;
+    }
+
+    /**
+     * @param storeId only plan orders of this store, or {@code null} for all stores
+     * @param after   plan the wave following the orders up to this id, e.g. to preview the next wave
+     * @param limit   wave size, capped at the configured maximum
+     */
+    @Transactional(readOnly = true)
+    public OrderWave planWave(Long storeId, Long after, Integer limit) {
+        int size = limit == null || limit <= 0 ? maxOrders : Math.min(limit, maxOrders);
+        long start = after == null ? 0L : after;
+        List<Long> ids = storeId == null
+                ? orderRepository.findIdsByStatusAfter(OrderStatus.CONFIRMED, start, Limit.of(size))
+                : orderRepository.findIdsByStoreIdAndStatusAfter(storeId, OrderStatus.CONFIRMED, start, Limit.of(size));
+        if (ids.isEmpty()) {
+            return new OrderWave(List.of(), List.of());
+        }
+        return new OrderWave(ids, pickList(ids));
+    }
+
+    /**
+     * Plans the wave following {@code after} and ships it in the same transaction. Orders that fail,
+     * e.g. for lack of stock, stay CONFIRMED; pass the last id of the previous wave as {@code after}
+     * so the next wave moves past them instead of picking the same orders again.
+     */
+    @Transactional
+    public List<OrderTransitionResult> shipWave(Long storeId, Long after, Integer limit) {
+        List<Long> ids = planWave(storeId, after, limit).orderIds();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return orderService.transitionOrders(OrderTransition.SHIP, ids);
+    }
+
+    /**
+     * Single-product orders and order lines are aggregated by separate queries; a (product, store)
+     * present in both is merged here.
+     */
+    private List<PickListLine> pickList(List<Long> ids) {
+        Map<Shelf, PickListLine> lines = new LinkedHashMap<>();
+        Stream.concat(orderRepository.findPickListByIds(ids).stream(), orderLineRepository.findPickListByOrderIds(ids).stream())
+                .forEach(line -> lines.merge(new Shelf(line.productId(), line.storeId()), line, (a, b) -> new PickListLine(
+                        a.productId(), a.productName(), a.storeId(), a.quantity() + b.quantity(), a.orders() + b.orders())));
+        List<PickListLine> sorted = new ArrayList<>(lines.values());
+        sorted.sort(Comparator.comparing(PickListLine::storeId).thenComparing(PickListLine::productName));
+        return sorted;
+    }
+
+    private record Shelf(Long productId, Long storeId) {
+    }
+}
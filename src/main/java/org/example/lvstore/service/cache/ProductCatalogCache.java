@@ -0,0 +1,100 @@
+package org.example.lvstore.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.lvstore.entity.Product;
+import org.example.lvstore.payload.product.ProductCacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Bounded in-process cache of products keyed by id, with a secondary barcode index.
+ * Entries expire after the configured TTL, which also bounds how stale another node's
+ * copy can get, since invalidation is local to this instance.
+ */
+@Component
+public class ProductCatalogCache implements MeterBinder {
+
+    private final Cache<Long, Product> byId;
+    private final Cache<String, Long> idByBarcode;
+
+    public ProductCatalogCache(@Value("${lvstore.product-cache.maximum-size:50000}") long maximumSize,
+                               @Value("${lvstore.product-cache.ttl:10m}") Duration ttl) {
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.idByBarcode = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Product> getById(Long id) {
+        return Optional.ofNullable(byId.getIfPresent(id));
+    }
+
+    public Optional<Product> getByBarcode(String barcode) {
+        Long id = idByBarcode.getIfPresent(barcode);
+        if (id == null) {
+            return Optional.empty();
+        }
+        Product product = byId.getIfPresent(id);
+        if (product == null || !barcode.equals(product.getBarcode())) {
+            idByBarcode.invalidate(barcode);
+            return Optional.empty();
+        }
+        return Optional.of(product);
+    }
+
+    public boolean containsBarcode(String barcode) {
+        return getByBarcode(barcode).isPresent();
+    }
+
+    public void put(Product product) {
+        if (product.getId() == null) {
+            return;
+        }
+        Product previous = byId.asMap().put(product.getId(), product);
+        if (previous != null && previous.getBarcode() != null && !previous.getBarcode().equals(product.getBarcode())) {
+            idByBarcode.invalidate(previous.getBarcode());
+        }
+        if (product.getBarcode() != null) {
+            idByBarcode.put(product.getBarcode(), product.getId());
+        }
+    }
+
+    public void evict(Long id) {
+        Product previous = byId.asMap().remove(id);
+        if (previous != null && previous.getBarcode() != null) {
+            idByBarcode.invalidate(previous.getBarcode());
+        }
+    }
+
+    public ProductCacheStats stats() {
+        CacheStats idStats = byId.stats();
+        CacheStats barcodeStats = idByBarcode.stats();
+        return new ProductCacheStats(
+                byId.estimatedSize(),
+                idStats.hitCount(),
+                idStats.missCount(),
+                barcodeStats.hitCount(),
+                barcodeStats.missCount(),
+                idStats.evictionCount());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, byId, "products.byId");
+        CaffeineCacheMetrics.monitor(registry, idByBarcode, "products.byBarcode");
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.lvstore.service.enums;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Status transitions that can be applied to many orders at once, named as in
+ * {@code PUT /orders/batch/{transition}}.
+ */
+public enum OrderTransition {
+    CONFIRM(EnumSet.of(OrderStatus.NEW), OrderStatus.CONFIRMED),
+    SHIP(EnumSet.of(OrderStatus.CONFIRMED), OrderStatus.SHIPPED),
+    CANCEL(EnumSet.of(OrderStatus.NEW, OrderStatus.CONFIRMED, OrderStatus.SHIPPED), OrderStatus.CANCELLED);
+
+    private final Set<OrderStatus> from;
+    private final OrderStatus to;
+
+    OrderTransition(Set<OrderStatus> from, OrderStatus to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    public Set<OrderStatus> from() {
+        return from;
+    }
+
+    public OrderStatus to() {
+        return to;
+    }
+
+    /**
+     * @throws IllegalArgumentException for an unknown name
+     */
+    public static OrderTransition of(String name) {
+        return Arrays.stream(values())
+                .filter(transition -> transition.name().equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(String.format("Unknown order transition %s", name)));
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.lvstore.service.enums;
+
+public enum StockMovementReason {
+    CREATED,
+    UPDATED,
+    DELETED,
+    ORDER_SHIPPED,
+    ORDER_RECEIVED
+}
@@ -0,0 +1,69 @@
+package org.example.lvstore.service.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Writes a stream of rows as newline-delimited JSON, one object per line.
+ * The persistence context is cleared every {@link #CLEAR_INTERVAL} rows so that
+ * entities read from a cursor do not accumulate for the whole export.
+ */
+@Component
+@RequiredArgsConstructor
+public class NdjsonExporter {
+
+    public static final int FETCH_SIZE = 500;
+    public static final int CLEAR_INTERVAL = FETCH_SIZE;
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public <T> long write(Stream<T> rows, OutputStream out) throws IOException {
+        return write(rows, batch -> batch, out);
+    }
+
+    /**
+     * Writes {@code rows} mapped through {@code batchMapper}, which is given up to {@link #CLEAR_INTERVAL}
+     * rows at a time, so whatever the rows need can be loaded with one query per batch.
+     */
+    public <T, R> long write(Stream<T> rows, Function<List<T>, List<R>> batchMapper, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long written = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            List<T> batch = new ArrayList<>(CLEAR_INTERVAL);
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() < CLEAR_INTERVAL && iterator.hasNext()) {
+                    continue;
+                }
+                for (R row : batchMapper.apply(batch)) {
+                    writer.writeValue(generator, row);
+                    generator.writeRaw('\n');
+                    written++;
+                }
+                if (batch.size() == CLEAR_INTERVAL) {
+                    entityManager.clear();
+                    generator.flush();
+                }
+                batch.clear();
+            }
+        }
+        return written;
+    }
+}
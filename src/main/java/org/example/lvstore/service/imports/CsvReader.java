@@ -0,0 +1,108 @@
+package org.example.lvstore.service.imports;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads comma-separated records one at a time (RFC 4180: quoted fields may contain commas,
+ * doubled quotes and line breaks). Only the current record is held in memory, and a record longer
+ * than {@code maxRecordLength} characters is rejected, so an unterminated quote cannot swallow the
+ * rest of the input.
+ */
+public class CsvReader implements Closeable {
+
+    private static final char BOM = '\uFEFF';
+    private static final int END = -1;
+
+    private final BufferedReader reader;
+    private final int maxRecordLength;
+    private long lineNumber;
+    private long recordLine;
+
+    public CsvReader(Reader reader, int maxRecordLength) {
+        this.reader = new BufferedReader(reader);
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    /**
+     * @return the fields of the next record, or {@code null} at the end of input
+     * @throws IllegalArgumentException if the record is too long or a quoted field is never closed
+     */
+    public List<String> next() throws IOException {
+        int c = reader.read();
+        if (c == END) {
+            return null;
+        }
+        if (lineNumber == 0 && c == BOM) {
+            c = reader.read();
+        }
+        recordLine = ++lineNumber;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int length = 0;
+        for (; ; c = reader.read()) {
+            if (c == END) {
+                if (quoted) {
+                    throw new IllegalArgumentException(String.format("Unterminated quoted field on line %s", recordLine));
+                }
+                break;
+            }
+            if (++length > maxRecordLength) {
+                throw new IllegalArgumentException(String.format("Record on line %s is longer than %s characters",
+                        recordLine, maxRecordLength));
+            }
+            if (c == '\r' || c == '\n') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                if (!quoted) {
+                    break;
+                }
+                lineNumber++;
+                field.append('\n');
+            } else if (quoted) {
+                if (c != '"') {
+                    field.append((char) c);
+                } else {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append((char) c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Line on which the record last returned by {@link #next()} starts, 1-based.
+     */
+    public long recordLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.lvstore.service.retry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a unit of work when it lost a race for the rows it changes: a stale version, a lock that
+ * could not be taken or a deadlock. The work must open its own transaction, so every attempt re-reads
+ * those rows; callers must not already be inside one. Attempts are spaced by a jittered exponential
+ * backoff.
+ */
+@Component
+public class ConcurrencyRetry {
+
+    private final int maxAttempts;
+    private final Duration backoff;
+
+    public ConcurrencyRetry(@Value("${lvstore.concurrency-retry.max-attempts:3}") int maxAttempts,
+                            @Value("${lvstore.concurrency-retry.backoff:20ms}") Duration backoff) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+    }
+
+    public <T> T execute(Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return work.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                pause(attempt);
+            }
+        }
+    }
+
+    private void pause(int attempt) {
+        long base = backoff.toMillis() << (attempt - 1);
+        if (base <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(base + ThreadLocalRandom.current().nextLong(base));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", e);
+        }
+    }
+}
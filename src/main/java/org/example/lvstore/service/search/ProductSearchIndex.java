@@ -0,0 +1,159 @@
+package org.example.lvstore.service.search;
+
+import lombok.RequiredArgsConstructor;
+import org.example.lvstore.entity.Product;
+import org.example.lvstore.repository.ProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-process inverted index over product name, category and description. Terms are kept sorted so a
+ * query token matches every term it is a prefix of. A product must match all query tokens; it is
+ * ranked by field weight (name 3, category 2, description 1), with whole-word matches counting double.
+ * The index is local to this instance: it is built from the database on startup and resynced every
+ * {@code lvstore.search.resync-interval}, which picks up writes made on other nodes.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int BUILD_PAGE_SIZE = 1000;
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ProductRepository productRepository;
+
+    private final ConcurrentSkipListMap<String, Map<Long, Integer>> postings = new ConcurrentSkipListMap<>();
+    private final Map<Long, Set<String>> termsByProduct = new ConcurrentHashMap<>();
+
+    /**
+     * Reindexes every product and drops those no longer in the database. Products indexed while the
+     * rebuild runs are left alone.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${lvstore.search.resync-interval:5m}",
+            initialDelayString = "${lvstore.search.resync-interval:5m}")
+    public void rebuild() {
+        Set<Long> stale = new HashSet<>(termsByProduct.keySet());
+        long after = 0;
+        List<Product> page;
+        do {
+            page = productRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(BUILD_PAGE_SIZE));
+            for (Product product : page) {
+                stale.remove(product.getId());
+                index(product);
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == BUILD_PAGE_SIZE);
+        stale.forEach(this::remove);
+    }
+
+    public synchronized void index(Product product) {
+        remove(product.getId());
+
+        Map<String, Integer> weights = new HashMap<>();
+        addTerms(weights, product.getName(), NAME_WEIGHT);
+        addTerms(weights, product.getCategory(), CATEGORY_WEIGHT);
+        addTerms(weights, product.getDescription(), DESCRIPTION_WEIGHT);
+
+        weights.forEach((term, weight) ->
+                postings.computeIfAbsent(term, t -> new ConcurrentHashMap<>()).put(product.getId(), weight));
+        termsByProduct.put(product.getId(), weights.keySet());
+    }
+
+    public synchronized void remove(Long productId) {
+        Set<String> terms = termsByProduct.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            postings.computeIfPresent(term, (t, products) -> {
+                products.remove(productId);
+                return products.isEmpty() ? null : products;
+            });
+        }
+    }
+
+    /**
+     * @return ids of matching products, best match first
+     */
+    public List<Long> search(String query, Integer limit) {
+        int size = limit == null ? DEFAULT_LIMIT : Math.min(Math.max(limit, 1), MAX_LIMIT);
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Integer> scores = null;
+        for (String token : tokens) {
+            Map<Long, Integer> tokenScores = scoreToken(token);
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                scores.keySet().retainAll(tokenScores.keySet());
+                scores.replaceAll((id, score) -> score + tokenScores.get(id));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(size)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    public int size() {
+        return termsByProduct.size();
+    }
+
+    private Map<Long, Integer> scoreToken(String token) {
+        Map<Long, Integer> scores = new HashMap<>();
+        ConcurrentNavigableMap<String, Map<Long, Integer>> matches = postings.subMap(token, true, token + Character.MAX_VALUE, false);
+        matches.forEach((term, products) -> {
+            int multiplier = term.equals(token) ? 2 : 1;
+            products.forEach((id, weight) -> scores.merge(id, weight * multiplier, Math::max));
+        });
+        return scores;
+    }
+
+    private static void addTerms(Map<String, Integer> weights, String text, int weight) {
+        for (String term : tokenize(text)) {
+            weights.merge(term, weight, Integer::sum);
+        }
+    }
+
+    private static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return SEPARATORS.splitAsStream(text.toLowerCase(Locale.ROOT))
+                .filter(term -> !term.isEmpty())
+                .distinct()
+                .toList();
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.lvstore.config.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.lvstore.entity.Store;
+import org.example.lvstore.repository.StockMovementRepository;
+import org.example.lvstore.repository.StoreRepository;
+import org.example.lvstore.service.StoreService;
+import org.example.lvstore.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MetricsAspectTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private StoreRepository storeRepository;
+    private StoreService storeService;
+
+    @BeforeEach
+    void setUp() {
+        MetricsAspect aspect = new MetricsAspect(meterRegistry);
+
+        AspectJProxyFactory repositoryProxy = new AspectJProxyFactory(mock(StoreRepository.class));
+        repositoryProxy.setInterfaces(StoreRepository.class);
+        repositoryProxy.addAspect(aspect);
+        storeRepository = repositoryProxy.getProxy();
+
+        AspectJProxyFactory serviceProxy = new AspectJProxyFactory(new StoreService(storeRepository, mock(UserService.class), mock(StockMovementRepository.class)));
+        serviceProxy.setProxyTargetClass(true);
+        serviceProxy.addAspect(aspect);
+        storeService = serviceProxy.getProxy();
+    }
+
+    @Test
+    void testServiceAndRepositoryCallsAreTimed() {
+        assertThrows(NoSuchElementException.class, () -> storeService.getStoreById(1L));
+
+        assertEquals(1, meterRegistry.get(MetricsAspect.SERVICE_TIMER)
+                .tags("class", "StoreService", "method", "getStoreById", "exception", "NoSuchElementException")
+                .timer().count());
+        assertEquals(1, meterRegistry.get(MetricsAspect.REPOSITORY_TIMER)
+                .tags("class", "StoreRepository", "method", "findById", "exception", "none")
+                .timer().count());
+        assertEquals(0, meterRegistry.get(MetricsAspect.REPOSITORY_ROWS)
+                .tags("class", "StoreRepository", "method", "findById")
+                .summary().totalAmount());
+    }
+
+    @Test
+    void testRepositoryRowCounts() {
+        StoreRepository target = mock(StoreRepository.class);
+        when(target.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(3))).thenReturn(List.of(new Store(), new Store()));
+        when(target.findById(1L)).thenReturn(Optional.of(new Store()));
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setInterfaces(StoreRepository.class);
+        factory.addAspect(new MetricsAspect(meterRegistry));
+        StoreRepository repository = factory.getProxy();
+
+        repository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(3));
+        repository.findById(1L);
+
+        assertEquals(2, meterRegistry.get(MetricsAspect.REPOSITORY_ROWS)
+                .tags("method", "findByIdGreaterThanOrderByIdAsc").summary().totalAmount());
+        assertEquals(1, meterRegistry.get(MetricsAspect.REPOSITORY_ROWS)
+                .tags("method", "findById").summary().totalAmount());
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.lvstore.config.security;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingJwtDecoderTest {
+
+    private final JwtDecoder delegate = mock(JwtDecoder.class);
+    private final AtomicLong nanos = new AtomicLong();
+    private final CachingJwtDecoder decoder = new CachingJwtDecoder(delegate, 100, (Ticker) nanos::get);
+
+    @Test
+    void testRepeatedTokenIsVerifiedOnce() {
+        Jwt jwt = jwt(Instant.now().plus(Duration.ofDays(7)));
+        when(delegate.decode("token")).thenReturn(jwt);
+
+        assertSame(jwt, decoder.decode("token"));
+        assertSame(jwt, decoder.decode("token"));
+
+        verify(delegate, times(1)).decode("token");
+    }
+
+    @Test
+    void testTokenIsVerifiedAgainAfterExpiry() {
+        when(delegate.decode("token")).thenReturn(jwt(Instant.now().plus(Duration.ofMinutes(1))));
+
+        decoder.decode("token");
+        nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+        decoder.decode("token");
+
+        verify(delegate, times(2)).decode("token");
+    }
+
+    @Test
+    void testRejectedTokenIsNotCached() {
+        when(delegate.decode("token")).thenThrow(new BadJwtException("bad signature"));
+
+        assertThrows(BadJwtException.class, () -> decoder.decode("token"));
+        assertThrows(BadJwtException.class, () -> decoder.decode("token"));
+
+        verify(delegate, times(2)).decode("token");
+    }
+
+    private static Jwt jwt(Instant expiresAt) {
+        return Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .subject("user")
+                .issuedAt(expiresAt.minus(Duration.ofDays(7)))
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
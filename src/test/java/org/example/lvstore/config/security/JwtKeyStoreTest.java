@@ -0,0 +1,99 @@
+package org.example.lvstore.config.security;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import org.example.lvstore.entity.User;
+import org.example.lvstore.service.JwtService;
+import org.example.lvstore.service.enums.Role;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtKeyStoreTest {
+
+    private final JwtConfiguration configuration = new JwtConfiguration();
+    private final User user = User.builder().id(1L).username("seller").email("seller@lvstore.org").role(Role.SELLER).build();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testTokenFromOneNodeIsAcceptedByAnother() throws Exception {
+        Path keys = directory.resolve("jwt-keys.json");
+        JwtKeyStore first = new JwtKeyStore(keys.toString(), "ES256", Duration.ofDays(30), Duration.ofDays(7));
+        JwtKeyStore second = new JwtKeyStore(keys.toString(), "ES256", Duration.ofDays(30), Duration.ofDays(7));
+
+        String token = jwtService(first).generateToken(user);
+
+        assertEquals("seller", decoder(second).decode(token).getSubject());
+        assertEquals(first.signingKey().getKeyID(), second.signingKey().getKeyID());
+        assertEquals(JWSAlgorithm.ES256, first.signingKey().getAlgorithm());
+        assertEquals(1, JWKSet.load(keys.toFile()).getKeys().size());
+    }
+
+    @Test
+    void testRotationKeepsOldTokensValid() throws Exception {
+        Path keys = directory.resolve("jwt-keys.json");
+        JwtKeyStore store = new JwtKeyStore(keys.toString(), "RS256", Duration.ZERO, Duration.ofDays(7));
+        JWK before = store.signingKey();
+        String token = jwtService(store).generateToken(user);
+
+        Thread.sleep(5);
+        JWK after = store.signingKey();
+
+        assertNotEquals(before.getKeyID(), after.getKeyID());
+        assertEquals("seller", decoder(new JwtKeyStore(keys.toString(), "RS256", Duration.ofDays(30), Duration.ofDays(7))).decode(token).getSubject());
+    }
+
+    @Test
+    void testTokenSignedWithUnknownKeyIsRejected() {
+        JwtKeyStore one = new JwtKeyStore(directory.resolve("one.json").toString(), "ES256", Duration.ofDays(30), Duration.ofDays(7));
+        JwtKeyStore other = new JwtKeyStore(directory.resolve("other.json").toString(), "ES256", Duration.ofDays(30), Duration.ofDays(7));
+
+        String token = jwtService(one).generateToken(user);
+
+        assertThrows(BadJwtException.class, () -> decoder(other).decode(token));
+    }
+
+    @Test
+    void testUnsupportedAlgorithm() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new JwtKeyStore(directory.resolve("keys.json").toString(), "HS256", Duration.ofDays(30), Duration.ofDays(7)));
+        assertFalse(Files.exists(directory.resolve("keys.json")));
+    }
+
+    @Test
+    void testKeyStoreLocationIsRequired() {
+        assertThrows(IllegalStateException.class, () -> new JwtKeyStore(" ", "ES256", Duration.ofDays(30), Duration.ofDays(7)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new JwtKeyStore("data/jwt-keys.json", "ES256", Duration.ofDays(30), Duration.ofDays(7)));
+    }
+
+    @Test
+    void testTokenSignedDuringRecentReloadIsAcceptedAfterRotation() throws Exception {
+        Path keys = directory.resolve("jwt-keys.json");
+        JwtKeyStore verifier = new JwtKeyStore(keys.toString(), "ES256", Duration.ofDays(30), Duration.ofDays(7));
+        JwtKeyStore signer = new JwtKeyStore(keys.toString(), "ES256", Duration.ZERO, Duration.ofDays(7));
+
+        Thread.sleep(5);
+        String token = jwtService(signer).generateToken(user);
+
+        assertEquals("seller", decoder(verifier).decode(token).getSubject());
+    }
+
+    private JwtService jwtService(JwtKeyStore store) {
+        return new JwtService(configuration.jwtEncoder(store), store);
+    }
+
+    private JwtDecoder decoder(JwtKeyStore store) {
+        return configuration.jwtDecoder(store, 100);
+    }
+}
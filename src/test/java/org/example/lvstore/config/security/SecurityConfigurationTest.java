@@ -0,0 +1,92 @@
+package org.example.lvstore.config.security;
+
+import org.example.lvstore.controller.OrderController;
+import org.example.lvstore.service.IdempotencyService;
+import org.example.lvstore.service.OrderService;
+import org.example.lvstore.service.WaveService;
+import org.example.lvstore.service.retry.ConcurrencyRetry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Role rules of {@link SecurityConfiguration} for order endpoints, checked against the controller slice.
+ */
+@WebMvcTest(controllers = OrderController.class, properties = "management.server.port=8081")
+@Import({SecurityConfiguration.class, ConcurrencyRetry.class})
+public class SecurityConfigurationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private OrderService orderService;
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+    @MockitoBean
+    private WaveService waveService;
+    @MockitoBean
+    private CoockieBearerTokenResolver coockieBearerTokenResolver;
+    @MockitoBean
+    private CustomJwtAuthenticationConverter customJwtAuthenticationConverter;
+    @MockitoBean
+    private ClientRegistrationRepository clientRegistrationRepository;
+    @MockitoBean
+    private CustomOAuth2UserService customOAuth2UserService;
+    @MockitoBean
+    private OAuth2AuthenticationSuccessHandler oAuth2AuthenticationSuccessHandler;
+    @MockitoBean
+    private JwtDecoder jwtDecoder;
+
+    @Test
+    @WithMockUser(authorities = "SELLER")
+    void sellerCannotShipOrPlanAWave() throws Exception {
+        mockMvc.perform(put("/orders/waves/next/ship")).andExpect(status().isForbidden());
+        mockMvc.perform(get("/orders/waves/next")).andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(authorities = "WAREHOUSE_MANAGER")
+    void warehouseManagerShipsAWave() throws Exception {
+        mockMvc.perform(put("/orders/waves/next/ship")).andExpect(status().isOk());
+        mockMvc.perform(get("/orders/waves/next")).andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(authorities = "SELLER")
+    void sellerCannotRunBatchTransitions() throws Exception {
+        for (String transition : new String[]{"confirm", "ship", "cancel", "deliver"}) {
+            mockMvc.perform(put("/orders/batch/" + transition).contentType(MediaType.APPLICATION_JSON).content("[1]"))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
+    @Test
+    @WithMockUser(authorities = "WAREHOUSE_MANAGER")
+    void warehouseManagerShipsButDoesNotConfirmABatch() throws Exception {
+        mockMvc.perform(put("/orders/batch/ship").contentType(MediaType.APPLICATION_JSON).content("[1]"))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/orders/batch/confirm").contentType(MediaType.APPLICATION_JSON).content("[1]"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void metricsAreOnlyServedOnTheManagementPort() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/prometheus").with(request -> {
+            request.setLocalPort(8081);
+            return request;
+        })).andExpect(status().isNotFound());
+    }
+}
@@ -84,7 +84,8 @@ public class OrderControllerIntegrationTests {
                     LocalDateTime.now(),
                     productId,
                     storeId,
-                    userId
+                    userId,
+                    null
             );
 
             String response = mockMvc.perform(post("/orders")
@@ -105,8 +106,8 @@ public class OrderControllerIntegrationTests {
         } finally {
             if (orderId != null && userId != null && productId != null && storeId != null) {
                 orderRepository.deleteById(orderId);
-                userRepository.deleteById(userId);
                 storeRepository.deleteById(storeId);
+                userRepository.deleteById(userId);
                 productRepository.deleteById(productId);
             }
         }
@@ -146,7 +147,8 @@ public class OrderControllerIntegrationTests {
                     LocalDateTime.now(),
                     productId,
                     storeId,
-                    userId
+                    userId,
+                    null
             );
 
             mockMvc.perform(post("/orders")
@@ -156,8 +158,8 @@ public class OrderControllerIntegrationTests {
 
         } finally {
             if (userId != null && productId != null && storeId != null) {
-                userRepository.deleteById(userId);
                 storeRepository.deleteById(storeId);
+                userRepository.deleteById(userId);
                 productRepository.deleteById(productId);
             }
         }
@@ -213,8 +215,8 @@ public class OrderControllerIntegrationTests {
         } finally {
             if (orderId != null && userId != null && productId != null && storeId != null) {
                 orderRepository.deleteById(orderId);
-                userRepository.deleteById(userId);
                 storeRepository.deleteById(storeId);
+                userRepository.deleteById(userId);
                 productRepository.deleteById(productId);
             }
         }
@@ -278,8 +280,8 @@ public class OrderControllerIntegrationTests {
             mockMvc.perform(get("/orders")
                             .param("status", "CONFIRMED"))
                     .andExpect(status().isOk())
-                    .andExpect(jsonPath("$[0].status").value("CONFIRMED"))
-                    .andExpect(jsonPath("$[0].quantity").value(5));
+                    .andExpect(jsonPath("$.items[0].status").value("CONFIRMED"))
+                    .andExpect(jsonPath("$.items[0].quantity").value(5));
 
             mockMvc.perform(put("/orders/" + orderId + "/ship"))
                     .andExpect(status().isOk())
@@ -295,9 +297,9 @@ public class OrderControllerIntegrationTests {
             if (orderId != null && userId != null && productId != null && storeId != null && warehouseId != null && stockId != null) {
                 orderRepository.deleteById(orderId);
                 stockRepository.deleteById(stockId);
+                storeRepository.deleteById(storeId);
                 userRepository.deleteById(userId);
                 productRepository.deleteById(productId);
-                storeRepository.deleteById(storeId);
                 warehouseRepository.deleteById(warehouseId);
             }
         }
@@ -361,10 +363,10 @@ public class OrderControllerIntegrationTests {
         } finally {
             if (orderId != null && userId != null && productId != null && storeId != null && stockId != null) {
                 orderRepository.deleteById(orderId);
-                userRepository.deleteById(userId);
+                stockRepository.deleteById(stockId);
                 storeRepository.deleteById(storeId);
+                userRepository.deleteById(userId);
                 productRepository.deleteById(productId);
-                stockRepository.deleteById(stockId);
             }
         }
     }
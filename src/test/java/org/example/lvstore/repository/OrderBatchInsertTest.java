@@ -0,0 +1,70 @@
+package org.example.lvstore.repository;
+
+import jakarta.persistence.EntityManager;
+import org.example.lvstore.entity.Order;
+import org.example.lvstore.entity.Product;
+import org.example.lvstore.entity.Store;
+import org.example.lvstore.service.enums.OrderStatus;
+import org.example.lvstore.service.enums.Role;
+import org.example.lvstore.support.PostgresJpaTest;
+import org.example.lvstore.support.TestData;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@PostgresJpaTest
+public class OrderBatchInsertTest {
+
+    private static final int ROWS = 120;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private Statistics statistics;
+    private Product product;
+    private Store store;
+
+    @BeforeEach
+    void setUp() {
+        store = testData.store("Store", testData.user("admin", Role.STORE_ADMINISTRATOR));
+        product = testData.product("Product");
+        entityManager.flush();
+        statistics = testData.statistics();
+    }
+
+    @Test
+    void saveAll_shouldInsertInJdbcBatches() {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            orders.add(Order.builder()
+                    .status(OrderStatus.NEW)
+                    .quantity(1)
+                    .createdAt(LocalDateTime.now())
+                    .product(product)
+                    .store(store)
+                    .createdBy(store.getAdmin())
+                    .build());
+        }
+
+        orderRepository.saveAll(orders);
+        entityManager.flush();
+
+        assertEquals(ROWS, statistics.getEntityInsertCount());
+        // 3 sequence calls for 120 ids plus 3 batches of at most 50 rows, instead of a round trip per row
+        assertTrue(statistics.getPrepareStatementCount() <= 8,
+                "expected batched inserts, got " + statistics.getPrepareStatementCount() + " statements");
+    }
+}
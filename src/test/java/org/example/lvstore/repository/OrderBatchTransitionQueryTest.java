@@ -0,0 +1,120 @@
+package org.example.lvstore.repository;
+
+import org.example.lvstore.entity.Order;
+import org.example.lvstore.entity.Product;
+import org.example.lvstore.entity.Stock;
+import org.example.lvstore.entity.StockMovement;
+import org.example.lvstore.entity.Store;
+import org.example.lvstore.payload.order.OrderStockView;
+import org.example.lvstore.payload.stock.StockQuantity;
+import org.example.lvstore.service.ProductService;
+import org.example.lvstore.service.StockService;
+import org.example.lvstore.service.StoreService;
+import org.example.lvstore.service.enums.OrderStatus;
+import org.example.lvstore.service.export.NdjsonExporter;
+import org.example.lvstore.support.PostgresJpaTest;
+import org.example.lvstore.support.TestData;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@PostgresJpaTest
+@Import(StockService.class)
+public class OrderBatchTransitionQueryTest {
+
+    @MockitoBean
+    private ProductService productService;
+
+    @MockitoBean
+    private StoreService storeService;
+
+    @MockitoBean
+    private NdjsonExporter ndjsonExporter;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    private Statistics statistics;
+    private Store store;
+    private Product milk;
+    private Stock milkStock;
+    private Order single;
+    private Order multiLine;
+    private Order confirmed;
+
+    @BeforeEach
+    void setUp() {
+        store = testData.store("Store");
+        milk = testData.product("Milk");
+        milkStock = testData.stock(milk, store, 5);
+        single = testData.order(OrderStatus.NEW, store, milk, 3);
+        multiLine = testData.order(OrderStatus.NEW, store, null, null);
+        confirmed = testData.order(OrderStatus.CONFIRMED, store, milk, 1);
+        testData.flushAndClear();
+        statistics = testData.statistics();
+    }
+
+    @Test
+    void lockedReadReturnsTheRequestedOrdersInIdOrder() {
+        List<OrderStockView> orders = orderRepository.findStockViewsForUpdate(
+                List.of(confirmed.getId(), single.getId(), multiLine.getId(), Long.MAX_VALUE));
+
+        assertEquals(List.of(
+                new OrderStockView(single.getId(), OrderStatus.NEW, milk.getId(), store.getId(), 3),
+                new OrderStockView(multiLine.getId(), OrderStatus.NEW, null, store.getId(), null),
+                new OrderStockView(confirmed.getId(), OrderStatus.CONFIRMED, milk.getId(), store.getId(), 1)), orders);
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void batchUpdateMovesOnlyOrdersInASourceStatus() {
+        List<Long> all = List.of(single.getId(), multiLine.getId(), confirmed.getId());
+
+        assertEquals(2, orderRepository.updateStatuses(all, Set.of(OrderStatus.NEW), OrderStatus.CONFIRMED));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        testData.flushAndClear();
+
+        assertTrue(orderRepository.findAllById(all).stream().allMatch(order -> order.getStatus() == OrderStatus.CONFIRMED));
+        assertEquals(1L, orderRepository.findById(single.getId()).orElseThrow().getVersion());
+        assertEquals(0L, orderRepository.findById(confirmed.getId()).orElseThrow().getVersion());
+        assertEquals(0, orderRepository.updateStatuses(all, Set.of(OrderStatus.NEW), OrderStatus.CONFIRMED));
+    }
+
+    @Test
+    void batchShipmentTakesStockWhileItLasts() {
+        Map<Long, List<StockQuantity>> demands = new LinkedHashMap<>();
+        demands.put(single.getId(), List.of(new StockQuantity(milk.getId(), store.getId(), 3)));
+        demands.put(confirmed.getId(), List.of(new StockQuantity(milk.getId(), store.getId(), 4)));
+        demands.put(multiLine.getId(), List.of(new StockQuantity(milk.getId(), store.getId(), 2)));
+
+        assertEquals(Set.of(confirmed.getId()), stockService.decreaseStockForOrders(demands));
+        testData.flushAndClear();
+
+        assertEquals(0, stockRepository.findById(milkStock.getId()).orElseThrow().getQuantity());
+        List<StockMovement> movements = stockMovementRepository.findAll();
+        assertEquals(1, movements.size());
+        assertEquals(-5, movements.get(0).getDelta());
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.lvstore.repository;
+
+import jakarta.persistence.EntityManager;
+import org.example.lvstore.entity.Order;
+import org.example.lvstore.entity.Product;
+import org.example.lvstore.entity.Store;
+import org.example.lvstore.entity.User;
+import org.example.lvstore.service.enums.OrderStatus;
+import org.example.lvstore.service.enums.Role;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Inserts 100k orders through {@link OrderRepository#saveAll} with and without JDBC batching.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+public class OrderBulkInsertBenchmarkTest {
+
+    private static final int ROWS = 100_000;
+    private static final int CHUNK = 1_000;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void bulkInsert_shouldBeFasterWithJdbcBatching() {
+        User creator = User.builder().username("admin").email("admin@store.com").role(Role.STORE_ADMINISTRATOR).build();
+        entityManager.persist(creator);
+        Store store = Store.builder().name("Store").admin(creator).build();
+        entityManager.persist(store);
+        Product product = Product.builder().name("Product").barcode("barcode").price(1.0).build();
+        entityManager.persist(product);
+        entityManager.flush();
+
+        // warm-up so neither measured run pays for JIT and connection setup
+        insert(ROWS / 10, 50, product.getId(), store.getId(), creator.getId());
+
+        long unbatched = insert(ROWS, 1, product.getId(), store.getId(), creator.getId());
+        long batched = insert(ROWS, 50, product.getId(), store.getId(), creator.getId());
+
+        System.out.printf("%d orders: batch size 1 took %d ms, batch size 50 took %d ms%n",
+                ROWS, unbatched / 1_000_000, batched / 1_000_000);
+        assertTrue(batched < unbatched, "batched inserts should be faster");
+    }
+
+    private long insert(int rows, int batchSize, Long productId, Long storeId, Long creatorId) {
+        Session session = entityManager.unwrap(Session.class);
+        session.setJdbcBatchSize(batchSize);
+        long start = System.nanoTime();
+        for (int offset = 0; offset < rows; offset += CHUNK) {
+            Product product = entityManager.getReference(Product.class, productId);
+            Store store = entityManager.getReference(Store.class, storeId);
+            User creator = entityManager.getReference(User.class, creatorId);
+            List<Order> orders = new ArrayList<>(CHUNK);
+            for (int i = 0; i < CHUNK; i++) {
+                orders.add(Order.builder()
+                        .status(OrderStatus.NEW)
+                        .quantity(1)
+                        .createdAt(LocalDateTime.now())
+                        .product(product)
+                        .store(store)
+                        .createdBy(creator)
+                        .build());
+            }
+            orderRepository.saveAll(orders);
+            entityManager.flush();
+            entityManager.clear();
+        }
+        return System.nanoTime() - start;
+    }
+}
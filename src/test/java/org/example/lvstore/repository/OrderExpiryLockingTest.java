@@ -0,0 +1,89 @@
+package org.example.lvstore.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.lvstore.config.DatabasePlatform;
+import org.example.lvstore.config.metrics.OrderMetrics;
+import org.example.lvstore.entity.Order;
+import org.example.lvstore.entity.Product;
+import org.example.lvstore.entity.Store;
+import org.example.lvstore.service.OrderExpiryService;
+import org.example.lvstore.service.enums.OrderStatus;
+import org.example.lvstore.support.PostgresJpaTest;
+import org.example.lvstore.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Expiry next to a user transaction that holds an order, with fixtures committed so both see them.
+ */
+@PostgresJpaTest
+@Import({OrderExpiryService.class, OrderMetrics.class, SimpleMeterRegistry.class, DatabasePlatform.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OrderExpiryLockingTest {
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private OrderExpiryService orderExpiryService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        testData.deleteAll();
+    }
+
+    @Test
+    void skipsOrdersAnotherTransactionHoldsWithoutWaiting() throws Exception {
+        List<Order> stale = testData.committed(() -> {
+            Store store = testData.store("Store");
+            Product product = testData.product("Product");
+            LocalDateTime createdAt = LocalDateTime.now().minusDays(10);
+            return List.of(testData.order(OrderStatus.NEW, store, product, 1, createdAt),
+                    testData.order(OrderStatus.NEW, store, product, 1, createdAt));
+        });
+        Long held = stale.get(0).getId();
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> user = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(tx -> {
+            orderRepository.findStatusByIdForUpdate(held);
+            locked.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        try {
+            assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+            assertEquals(1, orderExpiryService.expireStaleOrders());
+        } finally {
+            release.countDown();
+            user.get(10, TimeUnit.SECONDS);
+        }
+        assertEquals(OrderStatus.NEW, orderRepository.findStatusById(held).orElseThrow());
+        assertEquals(OrderStatus.CANCELLED, orderRepository.findStatusById(stale.get(1).getId()).orElseThrow());
+        // the next run picks up the released order
+        assertEquals(1, orderExpiryService.expireStaleOrders());
+    }
+}
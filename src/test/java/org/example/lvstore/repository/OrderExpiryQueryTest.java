@@ -0,0 +1,109 @@
+package org.example.lvstore.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.lvstore.config.DatabasePlatform;
+import org.example.lvstore.config.metrics.OrderMetrics;
+import org.example.lvstore.entity.Order;
+import org.example.lvstore.entity.Product;
+import org.example.lvstore.entity.Store;
+import org.example.lvstore.payload.order.OrderView;
+import org.example.lvstore.service.OrderExpiryService;
+import org.example.lvstore.service.enums.OrderStatus;
+import org.example.lvstore.service.enums.Role;
+import org.example.lvstore.support.PostgresJpaTest;
+import org.example.lvstore.support.TestData;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@PostgresJpaTest
+@Import({OrderExpiryService.class, OrderMetrics.class, SimpleMeterRegistry.class, DatabasePlatform.class})
+@TestPropertySource(properties = "lvstore.orders.expiry.chunk-size=" + OrderExpiryQueryTest.CHUNK_SIZE)
+public class OrderExpiryQueryTest {
+
+    static final int CHUNK_SIZE = 5;
+    private static final int STALE = 12;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private OrderExpiryService orderExpiryService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        Store store = testData.store("Store", testData.user("admin", Role.STORE_ADMINISTRATOR));
+        Product product = testData.product("Product");
+
+        LocalDateTime stale = LocalDateTime.now().minusDays(10);
+        for (int i = 0; i < STALE; i++) {
+            testData.order(OrderStatus.NEW, store, product, 1, stale);
+        }
+        testData.order(OrderStatus.NEW, store, product, 1, LocalDateTime.now().minusDays(1));
+        testData.order(OrderStatus.CONFIRMED, store, product, 1, stale);
+        testData.flushAndClear();
+        statistics = testData.statistics();
+    }
+
+    @Test
+    void cancelsOnlyStaleNewOrdersInBoundedChunks() {
+        // the registry is shared by the cached test context
+        double expiredBefore = meterRegistry.counter(OrderMetrics.EXPIRED).count();
+        statistics.clear();
+
+        assertEquals(STALE, orderExpiryService.expireStaleOrders());
+
+        // the stamp of orders without a creation time, then 12 stale orders in chunks of 5:
+        // three locked reads and three updates
+        assertEquals(7, statistics.getPrepareStatementCount());
+        assertEquals(STALE, ordersIn(OrderStatus.CANCELLED).size());
+        List<OrderView> remaining = ordersIn(OrderStatus.NEW);
+        assertEquals(1, remaining.size());
+        assertTrue(remaining.get(0).createdAt().isAfter(LocalDateTime.now().minusDays(7)));
+        assertEquals(1, ordersIn(OrderStatus.CONFIRMED).size());
+        assertEquals(STALE, meterRegistry.counter(OrderMetrics.EXPIRED).count() - expiredBefore);
+    }
+
+    @Test
+    void secondRunFindsNothingToExpire() {
+        orderExpiryService.expireStaleOrders();
+        statistics.clear();
+
+        assertEquals(0, orderExpiryService.expireStaleOrders());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void orderWithoutCreationTimeAgesFromTheFirstRun() {
+        Store store = testData.store("Other");
+        Order legacy = testData.order(OrderStatus.NEW, store, null, null, null);
+        testData.flushAndClear();
+
+        orderExpiryService.expireStaleOrders();
+
+        OrderView stamped = orderRepository.findViewById(legacy.getId()).orElseThrow();
+        assertEquals(OrderStatus.NEW, stamped.status());
+        assertTrue(stamped.createdAt().isAfter(LocalDateTime.now().minusMinutes(1)));
+    }
+
+    private List<OrderView> ordersIn(OrderStatus status) {
+        return orderRepository.findViewsByStatusAfter(status, 0L, Limit.of(100));
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.lvstore.repository;
+
+import org.example.lvstore.entity.Order;
+import org.example.lvstore.entity.Product;
+import org.example.lvstore.entity.Stock;
+import org.example.lvstore.entity.StockMovement;
+import org.example.lvstore.entity.Store;
+import org.example.lvstore.service.ProductService;
+import org.example.lvstore.service.StockService;
+import org.example.lvstore.service.StoreService;
+import org.example.lvstore.service.enums.OrderStatus;
+import org.example.lvstore.service.export.NdjsonExporter;
+import org.example.lvstore.support.PostgresJpaTest;
+import org.example.lvstore.support.TestData;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@PostgresJpaTest
+@Import(StockService.class)
+public class OrderLineStockQueryTest {
+
+    @MockitoBean
+    private ProductService productService;
+
+    @MockitoBean
+    private StoreService storeService;
+
+    @MockitoBean
+    private NdjsonExporter ndjsonExporter;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    private Statistics statistics;
+    private Store store;
+    private Product milk;
+    private Stock milkStock;
+    private Stock breadStock;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        store = testData.store("Store");
+        milk = testData.product("Milk");
+        Product bread = testData.product("Bread");
+        milkStock = testData.stock(milk, store, 5);
+        breadStock = testData.stock(bread, store, 5);
+        order = testData.order(OrderStatus.CONFIRMED, store, null, null);
+        testData.line(order, milk, 2);
+        testData.line(order, milk, 1);
+        testData.line(order, bread, 4);
+        testData.flushAndClear();
+        statistics = testData.statistics();
+    }
+
+    @Test
+    void shippingTakesEveryLineWithLinesOfOneProductSummed() {
+        assertTrue(stockService.decreaseStockForOrder(order.getId(), store.getId()));
+        testData.flushAndClear();
+
+        assertEquals(2, quantity(milkStock));
+        assertEquals(1, quantity(breadStock));
+        List<StockMovement> movements = stockMovementRepository.findAll().stream()
+                .sorted(Comparator.comparing(StockMovement::getProductId))
+                .toList();
+        assertEquals(List.of(-3, -4), movements.stream().map(StockMovement::getDelta).toList());
+        assertEquals(milk.getId(), movements.get(0).getProductId());
+    }
+
+    @Test
+    void stockIsTakenInOneStatementWhateverTheNumberOfLines() {
+        assertEquals(2, stockRepository.decreaseQuantitiesForOrder(order.getId(), store.getId()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void understockedProductFailsTheShipment() {
+        assertTrue(stockService.decreaseStockForOrder(order.getId(), store.getId()));
+        testData.flushAndClear();
+
+        // both products are now short
+        assertFalse(stockService.decreaseStockForOrder(order.getId(), store.getId()));
+        testData.flushAndClear();
+        assertEquals(2, quantity(milkStock));
+        assertEquals(1, quantity(breadStock));
+    }
+
+    @Test
+    void deliveryPutsEveryLineBackAndNeedsEveryProductStocked() {
+        stockService.increaseStockForOrder(order.getId(), store.getId());
+        testData.flushAndClear();
+        assertEquals(8, quantity(milkStock));
+        assertEquals(9, quantity(breadStock));
+
+        stockRepository.deleteById(breadStock.getId());
+        testData.flushAndClear();
+        assertThrows(NoSuchElementException.class, () -> stockService.increaseStockForOrder(order.getId(), store.getId()));
+    }
+
+    private int quantity(Stock stock) {
+        return stockRepository.findById(stock.getId()).orElseThrow().getQuantity();
+    }
+}
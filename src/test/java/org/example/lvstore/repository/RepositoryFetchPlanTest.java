@@ -0,0 +1,186 @@
+package org.example.lvstore.repository;
+
+import jakarta.persistence.EntityManager;
+import org.example.lvstore.entity.*;
+import org.example.lvstore.payload.order.OrderLineEntry;
+import org.example.lvstore.payload.order.OrderView;
+import org.example.lvstore.payload.stock.StockView;
+import org.example.lvstore.payload.warehousestock.WarehouseStockView;
+import org.example.lvstore.service.enums.OrderStatus;
+import org.example.lvstore.service.enums.Role;
+import org.example.lvstore.support.PostgresJpaTest;
+import org.example.lvstore.support.TestData;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@PostgresJpaTest
+public class RepositoryFetchPlanTest {
+
+    private static final int ROWS = 20;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private WarehouseStockRepository warehouseStockRepository;
+
+    private Statistics statistics;
+    private Store store;
+    private Warehouse warehouse;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < ROWS; i++) {
+            User admin = testData.user("admin" + i, Role.STORE_ADMINISTRATOR);
+            store = testData.store("Store " + i, admin);
+            warehouse = testData.warehouse("Warehouse " + i, admin);
+            Product product = testData.product("Product " + i);
+
+            testData.order(OrderStatus.NEW, store, product, 1);
+            testData.stock(product, store, 5);
+            testData.warehouseStock(product, warehouse, 5);
+        }
+        testData.flushAndClear();
+        statistics = testData.statistics();
+    }
+
+    @Test
+    void orderListingsRunOneStatement() {
+        List<OrderView> orders = orderRepository.findViewsAfter(0L, Limit.of(ROWS));
+        assertEquals(ROWS, orders.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        assertEquals(ROWS, orderRepository.findViewsByStatusAfter(OrderStatus.NEW, 0L, Limit.of(ROWS)).size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        List<OrderView> storeOrders = orderRepository.findViewsByStoreIdAfter(store.getId(), 0L, Limit.of(ROWS));
+        assertEquals(1, storeOrders.size());
+        assertEquals(store.getName(), storeOrders.get(0).storeName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void linesOfManyOrdersLoadInOneStatement() {
+        Product milk = testData.product("Milk");
+        Product bread = testData.product("Bread");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Order order = testData.order(OrderStatus.NEW, store, null, null);
+            testData.line(order, milk, 2);
+            testData.line(order, bread, 1);
+            ids.add(order.getId());
+        }
+        testData.flushAndClear();
+        statistics.clear();
+
+        List<OrderLineEntry> lines = orderLineRepository.findViewsByOrderIdIn(ids);
+
+        assertEquals(6, lines.size());
+        assertEquals(Set.copyOf(ids), lines.stream().map(OrderLineEntry::orderId).collect(Collectors.toSet()));
+        assertEquals("Milk", lines.get(0).productName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void orderListingHonoursLimitAndCursor() {
+        List<OrderView> firstPage = orderRepository.findViewsAfter(0L, Limit.of(5));
+        List<OrderView> secondPage = orderRepository.findViewsAfter(firstPage.get(4).id(), Limit.of(5));
+
+        assertEquals(5, firstPage.size());
+        assertEquals(5, secondPage.size());
+        assertTrue(secondPage.get(0).id() > firstPage.get(4).id());
+    }
+
+    @Test
+    void orderLookupLoadsWholeGraphInOneStatement() {
+        Long id = orderRepository.findViewsAfter(0L, Limit.of(1)).get(0).id();
+        statistics.clear();
+
+        Order order = orderRepository.findById(id).orElseThrow();
+
+        assertNotNull(order.getStore().getAdmin().getUsername());
+        assertNotNull(order.getCreatedBy().getUsername());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void statusTransitionIsOneConditionalUpdate() {
+        Long id = orderRepository.findViewsAfter(0L, Limit.of(1)).get(0).id();
+        statistics.clear();
+
+        assertEquals(1, orderRepository.updateStatus(id, OrderStatus.NEW, OrderStatus.CONFIRMED));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, orderRepository.updateStatus(id, OrderStatus.NEW, OrderStatus.CONFIRMED));
+
+        entityManager.clear();
+        Order order = orderRepository.findById(id).orElseThrow();
+        assertEquals(OrderStatus.CONFIRMED, order.getStatus());
+        assertEquals(1L, order.getVersion());
+        assertEquals(OrderStatus.CONFIRMED, orderRepository.findStatusById(id).orElseThrow());
+    }
+
+    @Test
+    void stockListingsRunOneStatement() {
+        assertEquals(ROWS, stockRepository.findViewsAfter(0L, Limit.of(ROWS)).size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        List<StockView> stocks = stockRepository.findViewsByStoreIdAfter(store.getId(), 0L, Limit.of(ROWS));
+        assertEquals(1, stocks.size());
+        assertEquals(store.getName(), stocks.get(0).storeName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void criticalStockIsFilteredInTheQuery() {
+        List<StockView> all = stockRepository.findViewsAfter(0L, Limit.of(ROWS));
+        Stock low = stockRepository.findById(all.get(3).id()).orElseThrow();
+        low.setQuantity(low.getMinQuantity());
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        List<StockView> critical = stockRepository.findCriticalViewsAfter(0L, Limit.of(ROWS));
+        assertEquals(List.of(low.getId()), critical.stream().map(StockView::id).toList());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        assertEquals(1, stockRepository.findCriticalViewsByStoreIdAfter(low.getStore().getId(), 0L, Limit.of(ROWS)).size());
+        assertEquals(0, stockRepository.findCriticalViewsByStoreIdAfter(store.getId(), 0L, Limit.of(ROWS)).size());
+    }
+
+    @Test
+    void warehouseStockListingsRunOneStatement() {
+        assertEquals(ROWS, warehouseStockRepository.findViewsAfter(0L, Limit.of(ROWS)).size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        List<WarehouseStockView> stocks = warehouseStockRepository.findViewsByWarehouseIdAfter(warehouse.getId(), 0L, Limit.of(ROWS));
+        assertEquals(1, stocks.size());
+        assertEquals(warehouse.getName(), stocks.get(0).warehouseName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.lvstore.repository;
+
+import jakarta.persistence.EntityManager;
+import org.example.lvstore.config.DatabasePlatform;
+import org.example.lvstore.entity.Product;
+import org.example.lvstore.entity.Store;
+import org.example.lvstore.payload.stock.StockQuantity;
+import org.example.lvstore.service.StockHistoryService;
+import org.example.lvstore.support.PostgresJpaTest;
+import org.example.lvstore.support.TestData;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@PostgresJpaTest
+@Import({StockHistoryService.class, DatabasePlatform.class})
+public class StockHistoryQueryTest {
+
+    private static final LocalDateTime EIGHT = LocalDateTime.of(2026, 3, 2, 8, 0);
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private StockHistoryService stockHistoryService;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    private Store store;
+    private Product milk;
+    private Product bread;
+
+    @BeforeEach
+    void setUp() {
+        store = testData.store("Store");
+        milk = testData.product("Milk");
+        bread = testData.product("Bread");
+        testData.stock(milk, store, 5);
+        testData.stock(bread, store, 0);
+        entityManager.flush();
+    }
+
+    @Test
+    void stockAsOfIsTheLatestSnapshotPlusTheMovementsSince() {
+        testData.snapshot(store, milk, EIGHT, 10);
+        testData.snapshot(store, milk, EIGHT.plusHours(2), 12);
+        testData.movement(store, milk, -1, EIGHT.plusMinutes(10));
+        testData.movement(store, milk, -2, EIGHT.plusMinutes(20));
+        testData.movement(store, milk, 5, EIGHT.plusMinutes(90));
+        testData.flushAndClear();
+        Statistics statistics = testData.statistics();
+
+        assertEquals(List.of(quantity(milk, 7)), stockHistoryService.getStockAsOf(store.getId(), EIGHT.plusHours(1)));
+        // latest snapshot, its rows and the movements since: one range read each
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(List.of(quantity(milk, 12)), stockHistoryService.getStockAsOf(store.getId(), EIGHT.plusMinutes(100)));
+        assertEquals(List.of(quantity(milk, 12)), stockHistoryService.getStockAsOf(store.getId(), EIGHT.plusHours(2)));
+    }
+
+    @Test
+    void stockAsOfBeforeTheFirstSnapshotRewindsTheCurrentStock() {
+        testData.movement(store, milk, -3, EIGHT.plusMinutes(30));
+        testData.movement(store, bread, 2, EIGHT.plusMinutes(40));
+        testData.movement(store, bread, -2, EIGHT.plusMinutes(50));
+        testData.flushAndClear();
+
+        assertEquals(List.of(quantity(milk, 8)), stockHistoryService.getStockAsOf(store.getId(), EIGHT));
+        assertEquals(List.of(quantity(milk, 5), quantity(bread, 2)), stockHistoryService.getStockAsOf(store.getId(), EIGHT.plusMinutes(45)));
+    }
+
+    @Test
+    void stockRemovedWithItsStoreStaysInTheHistory() {
+        LocalDateTime before = LocalDateTime.now().minusMinutes(1);
+
+        assertEquals(1, stockMovementRepository.recordStoreRemoval(store.getId()));
+        // what the cascade does in the database
+        entityManager.createQuery("delete from Stock s where s.store.id = :storeId")
+                .setParameter("storeId", store.getId())
+                .executeUpdate();
+        entityManager.clear();
+
+        assertTrue(stockRepository.findQuantitiesByStoreId(store.getId()).isEmpty());
+        assertEquals(List.of(quantity(milk, 5)), stockHistoryService.getStockAsOf(store.getId(), before));
+        assertEquals(List.of(), stockHistoryService.getStockAsOf(store.getId(), LocalDateTime.now().plusMinutes(1)));
+    }
+
+    private StockQuantity quantity(Product product, int quantity) {
+        return new StockQuantity(product.getId(), store.getId(), quantity);
+    }
+}
@@ -0,0 +1,138 @@
+package org.example.lvstore.repository;
+
+import org.example.lvstore.config.DatabasePlatform;
+import org.example.lvstore.entity.Product;
+import org.example.lvstore.entity.Stock;
+import org.example.lvstore.entity.StockMovement;
+import org.example.lvstore.entity.StockSnapshot;
+import org.example.lvstore.entity.Store;
+import org.example.lvstore.payload.stock.StockQuantity;
+import org.example.lvstore.service.StockHistoryService;
+import org.example.lvstore.service.enums.StockMovementReason;
+import org.example.lvstore.support.PostgresJpaTest;
+import org.example.lvstore.support.TestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Snapshots taken while another transaction is writing, with fixtures committed so both see them.
+ */
+@PostgresJpaTest
+@Import({StockHistoryService.class, DatabasePlatform.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class StockSnapshotConcurrencyTest {
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private StockHistoryService stockHistoryService;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    @Autowired
+    private StockSnapshotRepository stockSnapshotRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Store store;
+    private Product milk;
+    private Stock milkStock;
+
+    @BeforeEach
+    void setUp() {
+        testData.committed(() -> {
+            store = testData.store("Store");
+            milk = testData.product("Milk");
+            milkStock = testData.stock(milk, store, 5);
+            return null;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        testData.deleteAll();
+    }
+
+    @Test
+    void movementCommittedAfterASnapshotIsReplayedOnTopOfIt() throws Exception {
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> shipment = inTransaction(() -> {
+            Stock stock = stockRepository.findById(milkStock.getId()).orElseThrow();
+            stock.setQuantity(3);
+            stockMovementRepository.saveAndFlush(StockMovement.builder().storeId(store.getId()).productId(milk.getId())
+                    .delta(-2).reason(StockMovementReason.ORDER_SHIPPED).build());
+            written.countDown();
+            await(release);
+        });
+        try {
+            assertTrue(written.await(10, TimeUnit.SECONDS));
+
+            // the shipment is still in flight: the snapshot is taken before it started
+            assertEquals(1, stockHistoryService.takeSnapshots());
+        } finally {
+            release.countDown();
+            shipment.get(10, TimeUnit.SECONDS);
+        }
+
+        List<StockSnapshot> snapshot = stockSnapshotRepository.findAll();
+        assertEquals(1, snapshot.size());
+        assertEquals(5, snapshot.get(0).getQuantity());
+        LocalDateTime shippedAt = stockMovementRepository.findAll().get(0).getCreatedAt();
+        assertTrue(snapshot.get(0).getTakenAt().isBefore(shippedAt));
+        assertEquals(List.of(new StockQuantity(milk.getId(), store.getId(), 3)),
+                stockHistoryService.getStockAsOf(store.getId(), LocalDateTime.now().plusMinutes(1)));
+    }
+
+    @Test
+    void storeHeldByAnotherNodeIsSkipped() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> otherNode = inTransaction(() -> {
+            assertTrue(stockSnapshotRepository.tryLock(StockHistoryService.SNAPSHOT_LOCK, store.getId()));
+            locked.countDown();
+            await(release);
+        });
+        try {
+            assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+            assertEquals(0, stockHistoryService.takeSnapshots());
+        } finally {
+            release.countDown();
+            otherNode.get(10, TimeUnit.SECONDS);
+        }
+        assertEquals(1, stockHistoryService.takeSnapshots());
+    }
+
+    private CompletableFuture<Void> inTransaction(Runnable work) {
+        return CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(tx -> work.run()));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.lvstore.repository;
+
+import org.example.lvstore.entity.Order;
+import org.example.lvstore.entity.Product;
+import org.example.lvstore.entity.Store;
+import org.example.lvstore.payload.order.OrderWave;
+import org.example.lvstore.payload.order.PickListLine;
+import org.example.lvstore.service.OrderService;
+import org.example.lvstore.service.WaveService;
+import org.example.lvstore.service.enums.OrderStatus;
+import org.example.lvstore.support.PostgresJpaTest;
+import org.example.lvstore.support.TestData;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@PostgresJpaTest
+@Import(WaveService.class)
+@TestPropertySource(properties = "lvstore.waves.max-orders=3")
+public class WavePlanningQueryTest {
+
+    @MockitoBean
+    private OrderService orderService;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private WaveService waveService;
+
+    private Statistics statistics;
+    private Store store;
+    private Product milk;
+    private Product bread;
+    private final List<Long> confirmed = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        store = testData.store("Store");
+        Store other = testData.store("Other");
+        milk = testData.product("Milk");
+        bread = testData.product("Bread");
+
+        for (int i = 0; i < 3; i++) {
+            confirmed.add(testData.order(OrderStatus.CONFIRMED, store, milk, 2).getId());
+        }
+        Order multiLine = testData.order(OrderStatus.CONFIRMED, store, null, null);
+        testData.line(multiLine, milk, 4);
+        testData.line(multiLine, bread, 1);
+        confirmed.add(multiLine.getId());
+        testData.order(OrderStatus.NEW, store, milk, 7);
+        testData.order(OrderStatus.CONFIRMED, other, milk, 9);
+        testData.flushAndClear();
+        statistics = testData.statistics();
+    }
+
+    @Test
+    void pickListSumsSingleProductOrdersAndLinesPerShelf() {
+        OrderWave wave = waveService.planWave(store.getId(), confirmed.get(1), null);
+
+        assertEquals(confirmed.subList(2, 4), wave.orderIds());
+        assertEquals(List.of(
+                new PickListLine(bread.getId(), "Bread", store.getId(), 1L, 1L),
+                new PickListLine(milk.getId(), "Milk", store.getId(), 6L, 2L)), wave.pickList());
+        // the ids, then one aggregate per kind of order
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void waveTakesTheOldestConfirmedOrdersUpToItsSize() {
+        OrderWave first = waveService.planWave(store.getId(), null, 10);
+        OrderWave next = waveService.planWave(store.getId(), first.orderIds().get(2), null);
+
+        assertEquals(confirmed.subList(0, 3), first.orderIds());
+        assertEquals(List.of(new PickListLine(milk.getId(), "Milk", store.getId(), 6L, 3L)), first.pickList());
+        assertEquals(confirmed.subList(3, 4), next.orderIds());
+        // without a store, the other store's confirmed order follows
+        assertEquals(1, waveService.planWave(null, confirmed.get(3), null).orderIds().size());
+    }
+}
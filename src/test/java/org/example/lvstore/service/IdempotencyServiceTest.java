@@ -0,0 +1,140 @@
+package org.example.lvstore.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.lvstore.entity.IdempotencyRecord;
+import org.example.lvstore.payload.idempotency.IdempotentResponse;
+import org.example.lvstore.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceTest {
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository = mock(IdempotencyRecordRepository.class);
+    private final AtomicInteger runs = new AtomicInteger();
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(idempotencyRecordRepository, TransactionOperations.withoutTransaction(),
+                new ObjectMapper(), 100, Duration.ofHours(24));
+        when(idempotencyRecordRepository.saveAndFlush(any())).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void testRetryReplaysStoredResponse() {
+        IdempotentResponse first = idempotencyService.execute("key-1", "POST /orders", Map.of("quantity", 1), 201, this::createOrder);
+        IdempotentResponse retry = idempotencyService.execute("key-1", "POST /orders", Map.of("quantity", 1), 201, this::createOrder);
+
+        assertEquals(1, runs.get());
+        assertFalse(first.replayed());
+        assertTrue(retry.replayed());
+        assertEquals(201, retry.status());
+        assertEquals("{\"id\":1}", retry.body());
+        verify(idempotencyRecordRepository, times(1)).saveAndFlush(any());
+        verify(idempotencyRecordRepository, times(1)).findById(any());
+    }
+
+    @Test
+    void testConcurrentDuplicateReplaysCommittedResponse() {
+        // what the other node stored: same request, different key is enough to get the fingerprint
+        idempotencyService.execute("key-0", "PUT /orders/1/ship", null, 200, this::createOrder);
+        ArgumentCaptor<IdempotencyRecord> stored = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(idempotencyRecordRepository).saveAndFlush(stored.capture());
+        when(idempotencyRecordRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(idempotencyRecordRepository.findById(any()))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(stored.getValue()));
+
+        IdempotentResponse response = idempotencyService.execute("key-1", "PUT /orders/1/ship", null, 200, this::createOrder);
+
+        assertEquals(1, runs.get());
+        assertTrue(response.replayed());
+        assertEquals("{\"id\":1}", response.body());
+    }
+
+    @Test
+    void testKeyReusedForDifferentRequestIsRejected() {
+        idempotencyService.execute("key-1", "PUT /orders/1/ship", null, 200, this::createOrder);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> idempotencyService.execute("key-1", "PUT /orders/2/ship", null, 200, this::createOrder));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void testFailedOperationCanBeRetried() {
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute("key-1", "PUT /orders/1/ship", null, 200, () -> {
+            throw new IllegalStateException("Not enough stock to ship order");
+        }));
+
+        IdempotentResponse retry = idempotencyService.execute("key-1", "PUT /orders/1/ship", null, 200, this::createOrder);
+
+        assertFalse(retry.replayed());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void testExpiredRecordIsNotReplayed() {
+        idempotencyService.execute("key-1", "POST /orders", Map.of("quantity", 1), 201, this::createOrder);
+        ArgumentCaptor<IdempotencyRecord> stored = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(idempotencyRecordRepository).saveAndFlush(stored.capture());
+        stored.getValue().setCreatedAt(LocalDateTime.now().minusHours(25));
+
+        IdempotentResponse retry = idempotencyService.execute("key-1", "POST /orders", Map.of("quantity", 1), 201, this::createOrder);
+
+        assertFalse(retry.replayed());
+        assertEquals(2, runs.get());
+        verify(idempotencyRecordRepository).deleteExpired(any(), argThat(cutoff ->
+                cutoff.isBefore(LocalDateTime.now().minusHours(23)) && cutoff.isAfter(LocalDateTime.now().minusHours(25))));
+    }
+
+    @Test
+    void testExpiredRecordOnAnotherNodeIsNotReplayed() {
+        when(idempotencyRecordRepository.findById(any())).thenReturn(Optional.of(IdempotencyRecord.builder()
+                .fingerprint("other request")
+                .statusCode(201)
+                .body("{\"id\":7}")
+                .createdAt(LocalDateTime.now().minusDays(2))
+                .build()));
+
+        IdempotentResponse response = idempotencyService.execute("key-1", "POST /orders", Map.of("quantity", 1), 201, this::createOrder);
+
+        assertFalse(response.replayed());
+        assertEquals("{\"id\":1}", response.body());
+        verify(idempotencyRecordRepository).deleteExpired(any(), any());
+    }
+
+    @Test
+    void testInvalidKey() {
+        assertThrows(IllegalArgumentException.class, () -> idempotencyService.execute(" ", "POST /orders", null, 201, this::createOrder));
+        assertThrows(IllegalArgumentException.class,
+                () -> idempotencyService.execute("k".repeat(IdempotencyService.MAX_KEY_LENGTH + 1), "POST /orders", null, 201, this::createOrder));
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void testDeleteExpired() {
+        when(idempotencyRecordRepository.deleteCreatedBefore(any())).thenReturn(3);
+
+        assertEquals(3, idempotencyService.deleteExpired());
+        verify(idempotencyRecordRepository).deleteCreatedBefore(argThat(cutoff ->
+                cutoff.isBefore(LocalDateTime.now().minusHours(23)) && cutoff.isAfter(LocalDateTime.now().minusHours(25))));
+    }
+
+    private Map<String, Long> createOrder() {
+        runs.incrementAndGet();
+        return Map.of("id", 1L);
+    }
+}
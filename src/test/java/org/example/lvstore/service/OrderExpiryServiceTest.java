@@ -0,0 +1,91 @@
+package org.example.lvstore.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.lvstore.config.DatabasePlatform;
+import org.example.lvstore.config.metrics.OrderMetrics;
+import org.example.lvstore.repository.OrderRepository;
+import org.example.lvstore.service.enums.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderExpiryServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private DatabasePlatform databasePlatform;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OrderExpiryService orderExpiryService;
+
+    @BeforeEach
+    void setUp() {
+        orderExpiryService = new OrderExpiryService(orderRepository, TransactionOperations.withoutTransaction(),
+                new OrderMetrics(meterRegistry), databasePlatform, Duration.ofDays(7), 2);
+        lenient().when(databasePlatform.isPostgres()).thenReturn(true);
+    }
+
+    @Test
+    void cancelsInChunksUntilAChunkComesBackShort() {
+        when(orderRepository.findIdsCreatedBeforeForUpdate(eq(OrderStatus.NEW), any(), eq(Limit.of(2))))
+                .thenReturn(List.of(1L, 2L))
+                .thenReturn(List.of(3L));
+        when(orderRepository.updateStatuses(List.of(1L, 2L), Set.of(OrderStatus.NEW), OrderStatus.CANCELLED)).thenReturn(2);
+        when(orderRepository.updateStatuses(List.of(3L), Set.of(OrderStatus.NEW), OrderStatus.CANCELLED)).thenReturn(1);
+
+        assertEquals(3, orderExpiryService.expireStaleOrders());
+
+        assertEquals(3, meterRegistry.counter(OrderMetrics.EXPIRED).count());
+        assertEquals(3, meterRegistry.counter(OrderMetrics.TRANSITIONS, "from", "NEW", "to", "CANCELLED").count());
+    }
+
+    @Test
+    void usesTheConfiguredAgeAsCutoff() {
+        LocalDateTime before = LocalDateTime.now().minusDays(7);
+        when(orderRepository.findIdsCreatedBeforeForUpdate(eq(OrderStatus.NEW), any(), any())).thenReturn(List.of());
+
+        assertEquals(0, orderExpiryService.expireStaleOrders());
+
+        verify(orderRepository).findIdsCreatedBeforeForUpdate(eq(OrderStatus.NEW),
+                argThat(cutoff -> !cutoff.isBefore(before) && cutoff.isBefore(LocalDateTime.now().minusDays(6))), any());
+        verify(orderRepository, never()).updateStatuses(any(), any(), any());
+        assertNull(meterRegistry.find(OrderMetrics.EXPIRED).counter());
+    }
+
+    @Test
+    void stampsNewOrdersWithoutCreationTimeBeforeLookingForStaleOnes() {
+        when(orderRepository.findIdsCreatedBeforeForUpdate(eq(OrderStatus.NEW), any(), any())).thenReturn(List.of());
+
+        orderExpiryService.expireStaleOrders();
+
+        InOrder inOrder = inOrder(orderRepository);
+        inOrder.verify(orderRepository).stampMissingCreatedAt(eq(OrderStatus.NEW), any());
+        inOrder.verify(orderRepository).findIdsCreatedBeforeForUpdate(eq(OrderStatus.NEW), any(), any());
+    }
+
+    @Test
+    void doesNotRunOutsidePostgres() {
+        when(databasePlatform.isPostgres()).thenReturn(false);
+
+        assertEquals(0, orderExpiryService.expireStaleOrders());
+
+        verifyNoInteractions(orderRepository);
+    }
+}
@@ -1,20 +1,40 @@
 package org.example.lvstore.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.lvstore.config.metrics.OrderMetrics;
 import org.example.lvstore.entity.*;
 import org.example.lvstore.payload.order.CreateOrderRequest;
+import org.example.lvstore.payload.order.OrderBatchResult;
+import org.example.lvstore.payload.order.OrderLineQuantity;
+import org.example.lvstore.payload.order.OrderLineRequest;
+import org.example.lvstore.payload.order.OrderStockView;
+import org.example.lvstore.payload.order.OrderTransitionResult;
+import org.example.lvstore.payload.order.OrderLineEntry;
+import org.example.lvstore.payload.order.OrderLineView;
+import org.example.lvstore.payload.order.OrderView;
 import org.example.lvstore.payload.order.UpdateOrderRequest;
+import org.example.lvstore.payload.page.CursorPage;
+import org.example.lvstore.payload.stock.StockQuantity;
+import org.example.lvstore.repository.OrderLineRepository;
 import org.example.lvstore.repository.OrderRepository;
 import org.example.lvstore.service.enums.OrderStatus;
+import org.example.lvstore.service.enums.OrderTransition;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,6 +45,8 @@ public class OrderServiceTest {
     @Mock
     private OrderRepository orderRepository;
     @Mock
+    private OrderLineRepository orderLineRepository;
+    @Mock
     private ProductService productService;
     @Mock
     private StoreService storeService;
@@ -32,6 +54,9 @@ public class OrderServiceTest {
     private UserService userService;
     @Mock
     private StockService stockService;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Spy
+    private OrderMetrics orderMetrics = new OrderMetrics(meterRegistry);
     @InjectMocks
     private OrderService orderService;
 
@@ -43,7 +68,8 @@ public class OrderServiceTest {
                 LocalDateTime.now(),
                 1L,
                 2L,
-                3L
+                3L,
+                null
         );
 
         Product mockProduct = new Product();
@@ -78,11 +104,96 @@ public class OrderServiceTest {
         verify(orderRepository, times(1)).save(any(Order.class));
     }
 
+    @Test
+    void testCreateOrder_StampsCreationTimeWhenMissing() {
+        CreateOrderRequest request = new CreateOrderRequest("NEW", 5, null, 1L, 2L, 3L, null);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Order order = orderService.createOrder(request);
+
+        assertNotNull(order.getCreatedAt());
+    }
+
+    @Test
+    void testCreateOrder_WithLines() {
+        CreateOrderRequest request = new CreateOrderRequest("NEW", null, LocalDateTime.now(), null, 2L, 3L,
+                List.of(new OrderLineRequest(1L, 2), new OrderLineRequest(4L, 3)));
+        Product first = Product.builder().id(1L).build();
+        Product second = Product.builder().id(4L).build();
+
+        when(productService.getProductsByIds(Set.of(1L, 4L))).thenReturn(Map.of(1L, first, 4L, second));
+        when(storeService.getStoreById(2L)).thenReturn(new Store());
+        when(userService.getUserById(3L)).thenReturn(new User());
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Order order = orderService.createOrder(request);
+
+        assertNull(order.getProduct());
+        assertNull(order.getQuantity());
+        verify(orderLineRepository).saveAll(argThat((List<OrderLine> lines) -> lines.size() == 2
+                && lines.get(0).getOrder() == order
+                && lines.get(0).getProduct() == first
+                && lines.get(1).getQuantity() == 3));
+        verify(productService, never()).getProductById(any());
+    }
+
+    @Test
+    void testCreateOrder_RejectsLinesWithProduct() {
+        CreateOrderRequest request = new CreateOrderRequest("NEW", 1, LocalDateTime.now(), 1L, 2L, 3L,
+                List.of(new OrderLineRequest(1L, 2)));
+        when(productService.getProductsByIds(Set.of(1L))).thenReturn(Map.of(1L, Product.builder().id(1L).build()));
+
+        assertThrows(IllegalArgumentException.class, () -> orderService.createOrder(request));
+        verify(orderRepository, never()).save(any());
+    }
+
+
+    @Test
+    void testCreateOrders_SavesValidItemsAndReportsInvalidOnes() {
+        LocalDateTime now = LocalDateTime.now();
+        List<CreateOrderRequest> requests = List.of(
+                new CreateOrderRequest("NEW", 5, now, 1L, 2L, 3L, null),
+                new CreateOrderRequest("NEW", 7, now, 99L, 2L, 3L, null),
+                new CreateOrderRequest("NEW", 9, now, 1L, 2L, 3L, null)
+        );
+        Product product = Product.builder().id(1L).build();
+        Store store = Store.builder().id(2L).build();
+        User user = User.builder().id(3L).build();
+
+        when(productService.getProductsByIds(Set.of(1L, 99L))).thenReturn(Map.of(1L, product));
+        when(storeService.getStoresByIds(Set.of(2L))).thenReturn(Map.of(2L, store));
+        when(userService.getUsersByIds(Set.of(3L))).thenReturn(Map.of(3L, user));
+        when(orderRepository.saveAll(anyList())).thenAnswer(inv -> {
+            List<Order> orders = inv.getArgument(0);
+            for (int i = 0; i < orders.size(); i++) {
+                orders.get(i).setId(100L + i);
+            }
+            return orders;
+        });
+
+        List<OrderBatchResult> results = orderService.createOrders(requests);
+
+        assertEquals(List.of(
+                OrderBatchResult.created(0, 100L),
+                OrderBatchResult.failed(1, "Product with id 99 not found"),
+                OrderBatchResult.created(2, 101L)
+        ), results);
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void testCreateOrders_RejectsOversizedBatch() {
+        CreateOrderRequest request = new CreateOrderRequest("NEW", 1, LocalDateTime.now(), 1L, 2L, 3L, null);
+        List<CreateOrderRequest> requests = Collections.nCopies(OrderService.MAX_BATCH_SIZE + 1, request);
+
+        assertThrows(IllegalArgumentException.class, () -> orderService.createOrders(requests));
+        verifyNoInteractions(orderRepository);
+    }
 
     @Test
     void testUpdateOrder_Success() {
         UpdateOrderRequest request = new UpdateOrderRequest(
-                1L, 10, LocalDateTime.now(), 1L, 2L, 3L
+                1L, 10, LocalDateTime.now(), 1L, 2L, 3L, null
         );
 
         Order existingOrder = new Order();
@@ -108,7 +219,7 @@ public class OrderServiceTest {
     @Test
     void testUpdateOrder_Failure() {
         UpdateOrderRequest request = new UpdateOrderRequest(
-                404L, 1, LocalDateTime.now(), 1L, 1L, 1L
+                404L, 1, LocalDateTime.now(), 1L, 1L, 1L, null
         );
         when(orderRepository.findById(404L)).thenReturn(Optional.empty());
 
@@ -116,6 +227,42 @@ public class OrderServiceTest {
         verify(orderRepository, times(0)).save(any(Order.class));
     }
 
+    @Test
+    void testUpdateOrder_StaleVersion() {
+        UpdateOrderRequest request = new UpdateOrderRequest(
+                1L, 10, LocalDateTime.now(), 1L, 2L, 3L, 4L
+        );
+        Order existingOrder = Order.builder().id(1L).version(5L).build();
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(existingOrder));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> orderService.updateOrder(request));
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void testUpdateOrder_RejectsOrderWithLines() {
+        UpdateOrderRequest request = new UpdateOrderRequest(
+                1L, 10, LocalDateTime.now(), 1L, 2L, 3L, null
+        );
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(Order.builder().id(1L).build()));
+        when(orderLineRepository.existsByOrderId(1L)).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class, () -> orderService.updateOrder(request));
+        verify(productService, never()).getProductById(any());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void testUpdateOrder_RequiresProductAndQuantity() {
+        UpdateOrderRequest request = new UpdateOrderRequest(
+                1L, 10, LocalDateTime.now(), null, 2L, 3L, null
+        );
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(Order.builder().id(1L).product(new Product()).build()));
+
+        assertThrows(IllegalArgumentException.class, () -> orderService.updateOrder(request));
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
     @Test
     void testGetOrderById_Success() {
         Order mockOrder = new Order();
@@ -140,34 +287,96 @@ public class OrderServiceTest {
 
     @Test
     void testGetAllOrders_Success() {
-        Order o1 = new Order();
-        Order o2 = new Order();
-        when(orderRepository.findAll()).thenReturn(List.of(o1, o2));
+        OrderView o1 = orderView(null);
+        OrderView o2 = orderView(null);
+        when(orderRepository.findViewsAfter(0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1))).thenReturn(List.of(o1, o2));
+
+        CursorPage<OrderView> orders = orderService.getOrders(null, null);
+        assertEquals(2, orders.items().size());
+        assertFalse(orders.hasMore());
+        assertNull(orders.nextCursor());
+        verify(orderRepository, times(1)).findViewsAfter(0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1));
+    }
+
+    @Test
+    void testGetOrders_AttachesLinesOfMultiLineOrdersInOneQuery() {
+        OrderView single = orderView(1L);
+        OrderView multi = new OrderView(2L, OrderStatus.NEW, null, LocalDateTime.now(), null, null, 20L, "Store", 30L, 0L);
+        when(orderRepository.findViewsAfter(0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1))).thenReturn(List.of(single, multi));
+        when(orderLineRepository.findViewsByOrderIdIn(List.of(2L))).thenReturn(List.of(
+                new OrderLineEntry(2L, 5L, 10L, "Milk", 3),
+                new OrderLineEntry(2L, 6L, 11L, "Bread", 1)));
+
+        CursorPage<OrderView> orders = orderService.getOrders(null, null);
+
+        assertEquals(List.of(), orders.items().get(0).lines());
+        assertEquals(List.of(new OrderLineView(5L, 10L, "Milk", 3), new OrderLineView(6L, 11L, "Bread", 1)),
+                orders.items().get(1).lines());
+        verify(orderLineRepository, times(1)).findViewsByOrderIdIn(any());
+    }
+
+    @Test
+    void testGetOrders_SingleProductOrdersSkipLineQuery() {
+        when(orderRepository.findViewsAfter(0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1))).thenReturn(List.of(orderView(1L)));
+
+        orderService.getOrders(null, null);
+
+        verifyNoInteractions(orderLineRepository);
+    }
 
-        List<Order> orders = orderService.getAllOrders();
-        assertEquals(2, orders.size());
-        verify(orderRepository, times(1)).findAll();
+    @Test
+    void testGetOrderViewById_AttachesLines() {
+        when(orderRepository.findViewById(2L)).thenReturn(Optional.of(
+                new OrderView(2L, OrderStatus.NEW, null, LocalDateTime.now(), null, null, 20L, "Store", 30L, 0L)));
+        List<OrderLineView> lines = List.of(new OrderLineView(5L, 10L, "Milk", 3));
+        when(orderLineRepository.findViewsByOrderId(2L)).thenReturn(lines);
+
+        assertEquals(lines, orderService.getOrderViewById(2L).lines());
     }
 
     @Test
     void testGetOrdersByStoreId_Success() {
-        Order o1 = new Order();
-        Order o2 = new Order();
-        when(orderRepository.findByStoreId(5L)).thenReturn(List.of(o1, o2));
+        OrderView o1 = orderView(null);
+        OrderView o2 = orderView(null);
+        when(orderRepository.findViewsByStoreIdAfter(5L, 0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1))).thenReturn(List.of(o1, o2));
 
-        List<Order> result = orderService.getOrdersByStoreId(5L);
-        assertEquals(2, result.size());
-        verify(orderRepository, times(1)).findByStoreId(5L);
+        CursorPage<OrderView> result = orderService.getOrdersByStoreId(5L, null, null);
+        assertEquals(2, result.items().size());
+        verify(orderRepository, times(1)).findViewsByStoreIdAfter(5L, 0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1));
     }
 
     @Test
     void testGetOrdersByStatus_Success() {
-        Order o = new Order();
-        when(orderRepository.findByStatus(OrderStatus.CONFIRMED)).thenReturn(List.of(o));
+        OrderView o = orderView(null);
+        when(orderRepository.findViewsByStatusAfter(OrderStatus.CONFIRMED, 0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1))).thenReturn(List.of(o));
+
+        CursorPage<OrderView> result = orderService.getOrdersByStatus("CONFIRMED", null, null);
+        assertEquals(1, result.items().size());
+        verify(orderRepository, times(1)).findViewsByStatusAfter(OrderStatus.CONFIRMED, 0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1));
+    }
+
+    @Test
+    void testGetOrders_ReturnsCursorWhenMoreRowsExist() {
+        OrderView o1 = orderView(11L);
+        OrderView o2 = orderView(12L);
+        OrderView o3 = orderView(13L);
+        when(orderRepository.findViewsAfter(10L, Limit.of(3))).thenReturn(List.of(o1, o2, o3));
+
+        CursorPage<OrderView> page = orderService.getOrders(10L, 2);
 
-        List<Order> result = orderService.getOrdersByStatus("CONFIRMED");
-        assertEquals(1, result.size());
-        verify(orderRepository, times(1)).findByStatus(OrderStatus.CONFIRMED);
+        assertEquals(List.of(o1, o2), page.items());
+        assertTrue(page.hasMore());
+        assertEquals(12L, page.nextCursor());
+    }
+
+    @Test
+    void testGetOrders_CapsPageSize() {
+        when(orderRepository.findViewsAfter(0L, Limit.of(CursorPage.MAX_LIMIT + 1))).thenReturn(List.of());
+
+        CursorPage<OrderView> page = orderService.getOrders(null, 1_000_000);
+
+        assertTrue(page.items().isEmpty());
+        verify(orderRepository, times(1)).findViewsAfter(0L, Limit.of(CursorPage.MAX_LIMIT + 1));
     }
 
     @Test
@@ -177,109 +386,188 @@ public class OrderServiceTest {
         verify(orderRepository, times(1)).deleteById(10L);
     }
 
-    private Order createOrder(OrderStatus status) {
-        Product product = new Product();
-        product.setId(10L);
-
-        Store store = new Store();
-        store.setId(20L);
+    private OrderView orderView(Long id) {
+        return new OrderView(id, OrderStatus.NEW, 1, LocalDateTime.now(), 10L, "Product", 20L, "Store", 30L, 0L);
+    }
 
-        return Order.builder()
-                .id(1L)
-                .status(status)
-                .quantity(5)
-                .createdAt(LocalDateTime.now())
-                .product(product)
-                .store(store)
-                .build();
+    private OrderView orderInStatus(OrderStatus status) {
+        return new OrderView(1L, status, 5, LocalDateTime.now(), 10L, "Product", 20L, "Store", 30L, 0L);
     }
 
     @Test
     void confirmOrder_shouldUpdateStatus_whenOrderIsNew() {
-        Order order = createOrder(OrderStatus.NEW);
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
-        when(orderRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(orderRepository.updateStatus(1L, OrderStatus.NEW, OrderStatus.CONFIRMED)).thenReturn(1);
+        when(orderRepository.findViewById(1L)).thenReturn(Optional.of(orderInStatus(OrderStatus.CONFIRMED)));
 
-        Order result = orderService.confirmOrder(1L);
+        OrderView result = orderService.confirmOrder(1L);
 
-        assertEquals(OrderStatus.CONFIRMED, result.getStatus());
+        assertEquals(OrderStatus.CONFIRMED, result.status());
+        verify(orderRepository, never()).findById(any());
+        verify(orderRepository, never()).save(any());
     }
 
     @Test
     void confirmOrder_shouldThrow_whenOrderIsNotNew() {
-        Order order = createOrder(OrderStatus.CONFIRMED);
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(orderRepository.updateStatus(1L, OrderStatus.NEW, OrderStatus.CONFIRMED)).thenReturn(0);
+        when(orderRepository.findStatusById(1L)).thenReturn(Optional.of(OrderStatus.CONFIRMED));
 
         assertThrows(IllegalStateException.class, () -> orderService.confirmOrder(1L));
     }
 
+    @Test
+    void confirmOrder_shouldThrow_whenOrderNotFound() {
+        when(orderRepository.updateStatus(1L, OrderStatus.NEW, OrderStatus.CONFIRMED)).thenReturn(0);
+        when(orderRepository.findStatusById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(NoSuchElementException.class, () -> orderService.confirmOrder(1L));
+    }
+
     @Test
     void cancelOrder_shouldUpdateStatus_whenAllowed() {
-        Order order = createOrder(OrderStatus.NEW);
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
-        when(orderRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(orderRepository.findStatusByIdForUpdate(1L)).thenReturn(Optional.of(OrderStatus.NEW));
+        when(orderRepository.updateStatus(1L, OrderStatus.NEW, OrderStatus.CANCELLED)).thenReturn(1);
+        when(orderRepository.findViewById(1L)).thenReturn(Optional.of(orderInStatus(OrderStatus.CANCELLED)));
 
-        Order result = orderService.cancelOrder(1L);
+        OrderView result = orderService.cancelOrder(1L);
 
-        assertEquals(OrderStatus.CANCELLED, result.getStatus());
+        assertEquals(OrderStatus.CANCELLED, result.status());
+        assertEquals(1, meterRegistry.counter(OrderMetrics.TRANSITIONS, "from", "NEW", "to", "CANCELLED").count());
+    }
+
+    @Test
+    void cancelOrder_shouldUpdateOnceFromTheLockedStatus() {
+        when(orderRepository.findStatusByIdForUpdate(1L)).thenReturn(Optional.of(OrderStatus.CONFIRMED));
+        when(orderRepository.updateStatus(1L, OrderStatus.CONFIRMED, OrderStatus.CANCELLED)).thenReturn(1);
+        when(orderRepository.findViewById(1L)).thenReturn(Optional.of(orderInStatus(OrderStatus.CANCELLED)));
+
+        orderService.cancelOrder(1L);
+
+        verify(orderRepository, times(1)).updateStatus(any(), any(), any());
+        verify(orderRepository, never()).findStatusById(any());
+        assertEquals(1, meterRegistry.counter(OrderMetrics.TRANSITIONS, "from", "CONFIRMED", "to", "CANCELLED").count());
+    }
+
+    @Test
+    void cancelOrder_shouldThrow_whenOrderNotFound() {
+        when(orderRepository.findStatusByIdForUpdate(1L)).thenReturn(Optional.empty());
+
+        assertThrows(NoSuchElementException.class, () -> orderService.cancelOrder(1L));
+        verify(orderRepository, never()).updateStatus(any(), any(), any());
     }
 
     @Test
     void cancelOrder_shouldThrow_whenOrderIsCancelledOrReceived() {
         for (OrderStatus status : new OrderStatus[]{OrderStatus.CANCELLED, OrderStatus.RECEIVED}) {
-            Order order = createOrder(status);
-            when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+            when(orderRepository.findStatusByIdForUpdate(1L)).thenReturn(Optional.of(status));
             assertThrows(IllegalStateException.class, () -> orderService.cancelOrder(1L));
         }
+        verify(orderRepository, never()).updateStatus(any(), any(), any());
     }
 
     @Test
     void shipOrder_shouldUpdateStatusAndDecreaseStock_whenStockAvailable() {
-        
-        Order order = createOrder(OrderStatus.CONFIRMED);
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
-        when(stockService.isInStock(10L, 20L, 5)).thenReturn(true);
-        when(orderRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(orderRepository.updateStatus(1L, OrderStatus.CONFIRMED, OrderStatus.SHIPPED)).thenReturn(1);
+        when(orderRepository.findViewById(1L)).thenReturn(Optional.of(orderInStatus(OrderStatus.SHIPPED)));
+        when(stockService.decreaseStock(10L, 20L, 5)).thenReturn(true);
 
-        Order result = orderService.shipOrder(1L);
+        OrderView result = orderService.shipOrder(1L);
 
         verify(stockService).decreaseStock(10L, 20L, 5);
-        assertEquals(OrderStatus.SHIPPED, result.getStatus());
+        assertEquals(OrderStatus.SHIPPED, result.status());
+        assertEquals(1, meterRegistry.counter(OrderMetrics.TRANSITIONS, "from", "CONFIRMED", "to", "SHIPPED").count());
+    }
+
+    @Test
+    void shipOrder_shouldDecreaseStockForAllLines_whenOrderHasLines() {
+        when(orderRepository.updateStatus(1L, OrderStatus.CONFIRMED, OrderStatus.SHIPPED)).thenReturn(1);
+        when(orderRepository.findViewById(1L)).thenReturn(Optional.of(
+                new OrderView(1L, OrderStatus.SHIPPED, null, LocalDateTime.now(), null, null, 20L, "Store", 30L, 0L)));
+        when(stockService.decreaseStockForOrder(1L, 20L)).thenReturn(true);
+
+        orderService.shipOrder(1L);
+
+        verify(stockService, never()).decreaseStock(any(), any(), any());
     }
 
     @Test
     void shipOrder_shouldThrow_whenNotConfirmed() {
-        Order order = createOrder(OrderStatus.NEW);
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(orderRepository.updateStatus(1L, OrderStatus.CONFIRMED, OrderStatus.SHIPPED)).thenReturn(0);
+        when(orderRepository.findStatusById(1L)).thenReturn(Optional.of(OrderStatus.NEW));
+
         assertThrows(IllegalStateException.class, () -> orderService.shipOrder(1L));
+        verifyNoInteractions(stockService);
     }
 
     @Test
     void shipOrder_shouldThrow_whenNotEnoughStock() {
-        Order order = createOrder(OrderStatus.CONFIRMED);
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
-        when(stockService.isInStock(10L, 20L, 5)).thenReturn(false);
+        when(orderRepository.updateStatus(1L, OrderStatus.CONFIRMED, OrderStatus.SHIPPED)).thenReturn(1);
+        when(orderRepository.findViewById(1L)).thenReturn(Optional.of(orderInStatus(OrderStatus.SHIPPED)));
+        when(stockService.decreaseStock(10L, 20L, 5)).thenReturn(false);
 
         assertThrows(IllegalStateException.class, () -> orderService.shipOrder(1L));
+        assertEquals(0, meterRegistry.counter(OrderMetrics.TRANSITIONS, "from", "CONFIRMED", "to", "SHIPPED").count());
     }
 
-
     @Test
     void markAsDelivered_shouldUpdateStatus_whenShipped() {
-        Order order = createOrder(OrderStatus.SHIPPED);
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
-        when(orderRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(orderRepository.updateStatus(1L, OrderStatus.SHIPPED, OrderStatus.RECEIVED)).thenReturn(1);
+        when(orderRepository.findViewById(1L)).thenReturn(Optional.of(orderInStatus(OrderStatus.RECEIVED)));
 
-        Order result = orderService.markAsDelivered(1L);
+        OrderView result = orderService.markAsDelivered(1L);
 
-        assertEquals(OrderStatus.RECEIVED, result.getStatus());
+        verify(stockService).increaseStock(10L, 20L, 5);
+        assertEquals(OrderStatus.RECEIVED, result.status());
     }
 
     @Test
     void markAsDelivered_shouldThrow_whenNotShipped() {
-        Order order = createOrder(OrderStatus.NEW);
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(orderRepository.updateStatus(1L, OrderStatus.SHIPPED, OrderStatus.RECEIVED)).thenReturn(0);
+        when(orderRepository.findStatusById(1L)).thenReturn(Optional.of(OrderStatus.NEW));
 
         assertThrows(IllegalStateException.class, () -> orderService.markAsDelivered(1L));
+        verifyNoInteractions(stockService);
+    }
+
+    @Test
+    void transitionOrders_shouldShipEligibleOrdersAndReportTheRest() {
+        List<Long> ids = List.of(4L, 1L, 2L, 3L, 1L);
+        when(orderRepository.findStockViewsForUpdate(Set.of(1L, 2L, 3L, 4L))).thenReturn(List.of(
+                new OrderStockView(1L, OrderStatus.CONFIRMED, 10L, 20L, 5),
+                new OrderStockView(2L, OrderStatus.NEW, 10L, 20L, 5),
+                new OrderStockView(3L, OrderStatus.CONFIRMED, null, 20L, null)));
+        when(orderLineRepository.findQuantitiesByOrderIds(Set.of(3L)))
+                .thenReturn(List.of(new OrderLineQuantity(3L, 11L, 4L)));
+        when(stockService.decreaseStockForOrders(Map.of(
+                1L, List.of(new StockQuantity(10L, 20L, 5)),
+                3L, List.of(new StockQuantity(11L, 20L, 4))))).thenReturn(Set.of(3L));
+        when(orderRepository.updateStatuses(Set.of(1L), OrderTransition.SHIP.from(), OrderStatus.SHIPPED)).thenReturn(1);
+
+        List<OrderTransitionResult> results = orderService.transitionOrders("ship", ids);
+
+        assertEquals(List.of(4L, 1L, 2L, 3L), results.stream().map(OrderTransitionResult::orderId).toList());
+        assertEquals("Order with id 4 not found", results.get(0).error());
+        assertEquals(OrderStatus.SHIPPED, results.get(1).status());
+        assertNotNull(results.get(2).error());
+        assertEquals("Not enough stock to ship order", results.get(3).error());
+        assertEquals(1, meterRegistry.counter(OrderMetrics.TRANSITIONS, "from", "CONFIRMED", "to", "SHIPPED").count());
+    }
+
+    @Test
+    void transitionOrders_shouldCancelFromAnyCancellableStatusInOneUpdate() {
+        when(orderRepository.findStockViewsForUpdate(Set.of(1L, 2L))).thenReturn(List.of(
+                new OrderStockView(1L, OrderStatus.NEW, 10L, 20L, 5),
+                new OrderStockView(2L, OrderStatus.SHIPPED, 10L, 20L, 5)));
+        when(orderRepository.updateStatuses(Set.of(1L, 2L), OrderTransition.CANCEL.from(), OrderStatus.CANCELLED)).thenReturn(2);
+
+        List<OrderTransitionResult> results = orderService.transitionOrders("cancel", List.of(1L, 2L));
+
+        assertTrue(results.stream().allMatch(result -> result.status() == OrderStatus.CANCELLED));
+        verifyNoInteractions(stockService);
+    }
+
+    @Test
+    void transitionOrders_shouldRejectUnknownTransition() {
+        assertThrows(IllegalArgumentException.class, () -> orderService.transitionOrders("deliver", List.of(1L)));
+        verifyNoInteractions(orderRepository);
     }
 }
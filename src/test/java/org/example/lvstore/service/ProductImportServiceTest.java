@@ -0,0 +1,188 @@
+package org.example.lvstore.service;
+
+import jakarta.persistence.EntityManager;
+import org.example.lvstore.entity.Product;
+import org.example.lvstore.payload.product.ProductImportReport;
+import org.example.lvstore.repository.ProductRepository;
+import org.example.lvstore.service.cache.ProductCatalogCache;
+import org.example.lvstore.service.search.ProductSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductImportServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductCatalogCache productCatalogCache;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private ProductImportService productImportService;
+
+    @BeforeEach
+    void setUp() {
+        productImportService = new ProductImportService(productRepository, productCatalogCache, productSearchIndex,
+                TransactionOperations.withoutTransaction(), entityManager);
+    }
+
+    @Test
+    void testImportProducts_UpsertsByBarcode() throws IOException {
+        Product existing = Product.builder().id(7L).name("Old milk").barcode("111").price(1.0).build();
+        when(productRepository.findByBarcodeIn(Set.of("111", "222"))).thenReturn(List.of(existing));
+
+        ProductImportReport report = productImportService.importProducts(csv("""
+                name,category,barcode,price,description
+                Milk,Dairy,111,2.5,"Fresh, 1 l"
+                Bread,Bakery,222,1.2,
+                """));
+
+        assertEquals(new ProductImportReport(2, 1, 1, 0, 0, List.of(), null, null), report);
+        ArgumentCaptor<List<Product>> saved = ArgumentCaptor.forClass(List.class);
+        verify(productRepository).saveAll(saved.capture());
+        assertSame(existing, saved.getValue().get(0));
+        assertEquals("Milk", existing.getName());
+        assertEquals("Fresh, 1 l", existing.getDescription());
+        assertNull(saved.getValue().get(1).getId());
+        assertEquals("222", saved.getValue().get(1).getBarcode());
+        verify(entityManager).clear();
+        verify(productCatalogCache).evict(7L);
+        verify(productSearchIndex).index(existing);
+    }
+
+    @Test
+    void testImportProducts_ReportsInvalidAndDuplicateRows() throws IOException {
+        when(productRepository.findByBarcodeIn(any())).thenReturn(List.of());
+
+        ProductImportReport report = productImportService.importProducts(csv("""
+                barcode,name,price
+                111,Milk,abc
+                222,,1.0
+                333,Cheese,3.0
+                333,Cheese,3.5
+                """));
+
+        assertEquals(4, report.rows());
+        assertEquals(1, report.created());
+        assertEquals(1, report.duplicates());
+        assertEquals(2, report.skipped());
+        assertEquals(List.of("Line 2: price abc is not a number", "Line 3: name is required"), report.errors());
+    }
+
+    @Test
+    void testImportProducts_SavesInChunks() throws IOException {
+        when(productRepository.findByBarcodeIn(any())).thenReturn(List.of());
+        StringBuilder csv = new StringBuilder("name,barcode,price\n");
+        for (int i = 0; i < ProductImportService.CHUNK_SIZE * 2 + 1; i++) {
+            csv.append("Product ").append(i).append(',').append(i).append(",1.0\n");
+        }
+
+        ProductImportReport report = productImportService.importProducts(csv(csv.toString()));
+
+        assertEquals(ProductImportService.CHUNK_SIZE * 2 + 1, report.created());
+        verify(productRepository, times(3)).saveAll(anyList());
+        verify(entityManager, times(3)).clear();
+    }
+
+    @Test
+    void testImportProducts_UpdatesBarcodesRepeatedInALaterChunk() throws IOException {
+        Product savedEarlier = Product.builder().id(1L).name("Product 0").barcode("0").price(1.0).build();
+        when(productRepository.findByBarcodeIn(any())).thenReturn(List.of(), List.of(savedEarlier));
+        StringBuilder csv = new StringBuilder("name,barcode,price\r\n");
+        for (int i = 0; i < ProductImportService.CHUNK_SIZE; i++) {
+            csv.append("Product ").append(i).append(',').append(i).append(",1.0\r\n");
+        }
+        csv.append("Renamed,0,2.0\r\n");
+
+        ProductImportReport report = productImportService.importProducts(csv(csv.toString()));
+
+        assertEquals(ProductImportService.CHUNK_SIZE + 1, report.rows());
+        assertEquals(ProductImportService.CHUNK_SIZE, report.created());
+        assertEquals(1, report.updated());
+        assertEquals(0, report.duplicates());
+        assertEquals("Renamed", savedEarlier.getName());
+    }
+
+    @Test
+    void testImportProducts_SkipsValuesTooLongForTheirColumn() throws IOException {
+        when(productRepository.findByBarcodeIn(any())).thenReturn(List.of());
+
+        ProductImportReport report = productImportService.importProducts(csv(String.format("""
+                name,category,barcode,price
+                %s,Dairy,111,1.0
+                Milk,%s,222,1.0
+                Milk,Dairy,%s,1.0
+                Milk,Dairy,444,100000000
+                Milk,Dairy,555,1.0
+                """, "n".repeat(101), "c".repeat(51), "1".repeat(51))));
+
+        assertEquals(5, report.rows());
+        assertEquals(1, report.created());
+        assertEquals(4, report.skipped());
+        assertEquals(List.of("Line 2: name is longer than 100 characters",
+                "Line 3: category is longer than 50 characters",
+                "Line 4: barcode is longer than 50 characters",
+                "Line 5: price 100000000 is larger than 99999999.99"), report.errors());
+    }
+
+    @Test
+    void testImportProducts_ReportsTheLineThatStoppedTheImport() throws IOException {
+        when(productRepository.findByBarcodeIn(any())).thenReturn(List.of());
+        StringBuilder csv = new StringBuilder("name,barcode,price\n");
+        for (int i = 0; i < ProductImportService.CHUNK_SIZE + 1; i++) {
+            csv.append("Product ").append(i).append(',').append(i).append(",1.0\n");
+        }
+        csv.append("\"Broken,x,1.0\nNever,y,1.0\n");
+
+        ProductImportReport report = productImportService.importProducts(csv(csv.toString()));
+
+        assertEquals(ProductImportService.CHUNK_SIZE + 1, report.created());
+        assertEquals(ProductImportService.CHUNK_SIZE + 3, report.failedAtLine());
+        assertEquals("Unterminated quoted field on line " + (ProductImportService.CHUNK_SIZE + 3), report.failure());
+        verify(productRepository, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void testImportProducts_StopsAtAnOverlongRecord() throws IOException {
+        String name = "x".repeat(ProductImportService.MAX_RECORD_LENGTH);
+
+        ProductImportReport report = productImportService.importProducts(csv("name,barcode,price\n" + name + ",1,1.0\n"));
+
+        assertEquals(0, report.rows());
+        assertEquals(2, report.failedAtLine());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void testImportProducts_MissingColumn() {
+        assertThrows(IllegalArgumentException.class,
+                () -> productImportService.importProducts(csv("name,category\nMilk,Dairy\n")));
+        verifyNoInteractions(productRepository);
+    }
+
+    private static InputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,16 +1,27 @@
 package org.example.lvstore.service;
 
 import org.example.lvstore.entity.Product;
+import org.example.lvstore.payload.page.CursorPage;
 import org.example.lvstore.payload.product.CreateProductRequest;
 import org.example.lvstore.payload.product.UpdateProductRequest;
 import org.example.lvstore.repository.ProductRepository;
+import org.example.lvstore.repository.StockMovementRepository;
+import org.example.lvstore.service.cache.ProductCatalogCache;
+import org.example.lvstore.service.search.ProductSearchIndex;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 
@@ -23,6 +34,15 @@ public class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Spy
+    private ProductCatalogCache productCatalogCache = new ProductCatalogCache(100, Duration.ofMinutes(10));
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private StockMovementRepository stockMovementRepository;
+
     @InjectMocks
     private ProductService productService;
 
@@ -155,19 +175,144 @@ public class ProductServiceTest {
 
         productService.deleteProduct(10L);
 
-        verify(productRepository, times(1)).deleteById(10L);
+        InOrder inOrder = inOrder(stockMovementRepository, productRepository);
+        inOrder.verify(stockMovementRepository).recordProductRemoval(10L);
+        inOrder.verify(productRepository).deleteById(10L);
     }
 
     @Test
     void testGetAllProducts_Success() {
         Product p1 = new Product();
         Product p2 = new Product();
-        when(productRepository.findAll()).thenReturn(List.of(p1, p2));
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1))).thenReturn(List.of(p1, p2));
+
+        CursorPage<Product> products = productService.getProducts(null, null);
+
+        assertEquals(2, products.items().size());
+        verify(productRepository, times(1)).findByIdGreaterThanOrderByIdAsc(0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1));
+    }
+
+    @Test
+    void testGetProductByBarcode_ServedFromCacheAfterFirstLookup() {
+        Product product = Product.builder().id(7L).barcode("4820000000001").build();
+        when(productRepository.findByBarcode("4820000000001")).thenReturn(Optional.of(product));
+
+        productService.getProductByBarcode("4820000000001");
+        Product cached = productService.getProductByBarcode("4820000000001");
+        Product byId = productService.getProductById(7L);
+
+        assertSame(product, cached);
+        assertSame(product, byId);
+        verify(productRepository, times(1)).findByBarcode("4820000000001");
+        verify(productRepository, never()).findById(anyLong());
+        assertEquals(1, productService.getCacheStats().barcodeHits());
+        assertEquals(1, productService.getCacheStats().barcodeMisses());
+    }
+
+    @Test
+    void testCreateProduct_CachedBarcodeSkipsExistsQuery() {
+        Product product = Product.builder().id(7L).barcode("4820000000001").build();
+        when(productRepository.findByBarcode("4820000000001")).thenReturn(Optional.of(product));
+        productService.getProductByBarcode("4820000000001");
+
+        CreateProductRequest request = new CreateProductRequest("Milk", "Dairy", "4820000000001", 1.0, null);
+
+        assertThrows(IllegalArgumentException.class, () -> productService.createProduct(request));
+        verify(productRepository, never()).existsByBarcode(anyString());
+    }
+
+    @Test
+    void testUpdateProduct_ReplacesCachedBarcode() {
+        Product product = Product.builder().id(7L).barcode("old").build();
+        when(productRepository.findByBarcode("old")).thenReturn(Optional.of(product));
+        productService.getProductByBarcode("old");
+
+        Product stored = Product.builder().id(7L).barcode("old").build();
+        when(productRepository.findById(7L)).thenReturn(Optional.of(stored));
+        when(productRepository.save(stored)).thenReturn(stored);
 
-        List<Product> products = productService.getAllProducts();
+        productService.updateProduct(new UpdateProductRequest(7L, "Milk", "Dairy", "new", 1.0, null));
 
-        assertEquals(2, products.size());
-        verify(productRepository, times(1)).findAll();
+        assertSame(stored, productService.getProductByBarcode("new"));
+        when(productRepository.findByBarcode("old")).thenReturn(Optional.empty());
+        assertThrows(NoSuchElementException.class, () -> productService.getProductByBarcode("old"));
     }
 
+    @Test
+    void testDeleteProduct_EvictsCachedProduct() {
+        Product product = Product.builder().id(7L).barcode("4820000000001").build();
+        when(productRepository.findById(7L)).thenReturn(Optional.of(product), Optional.empty());
+        productService.getProductById(7L);
+
+        productService.deleteProduct(7L);
+
+        assertThrows(NoSuchElementException.class, () -> productService.getProductById(7L));
+        verify(productRepository, times(2)).findById(7L);
+    }
+
+    @Test
+    void testUpdateProduct_IndexesAndCachesOnlyAfterCommit() {
+        Product product = Product.builder().id(7L).name("Milk").barcode("111").build();
+        productCatalogCache.put(product);
+        when(productRepository.findById(7L)).thenReturn(Optional.of(Product.builder().id(7L).name("Milk").barcode("111").build()));
+        when(productRepository.save(any(Product.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            Product saved = productService.updateProduct(new UpdateProductRequest(7L, "Kefir", null, "111", 2.0, null));
+
+            verify(productSearchIndex, never()).index(any());
+            assertSame(product, productService.getProductById(7L));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+            verify(productSearchIndex).index(saved);
+            assertSame(saved, productService.getProductById(7L));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testDeleteProduct_RollbackKeepsCacheAndIndex() {
+        Product product = Product.builder().id(7L).barcode("111").build();
+        productCatalogCache.put(product);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            productService.deleteProduct(7L);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(productSearchIndex, never()).remove(any());
+        assertSame(product, productService.getProductById(7L));
+    }
+
+    @Test
+    void testGetProductsByIds_LoadsOnlyUncachedIds() {
+        Product cached = Product.builder().id(1L).barcode("111").build();
+        Product loaded = Product.builder().id(2L).barcode("222").build();
+        productCatalogCache.put(cached);
+        when(productRepository.findAllById(List.of(2L))).thenReturn(List.of(loaded));
+
+        Map<Long, Product> result = productService.getProductsByIds(List.of(1L, 2L));
+
+        assertEquals(Map.of(1L, cached, 2L, loaded), result);
+        assertEquals(Optional.of(loaded), productCatalogCache.getById(2L));
+    }
+
+    @Test
+    void testSearchProducts_KeepsIndexRanking() {
+        Product milk = Product.builder().id(1L).name("Milk").barcode("111").build();
+        Product chocolate = Product.builder().id(2L).name("Milk chocolate").barcode("222").build();
+        when(productSearchIndex.search("milk", null)).thenReturn(List.of(2L, 1L));
+        when(productRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(milk, chocolate));
+
+        List<Product> result = productService.searchProducts("milk", null);
+
+        assertEquals(List.of(chocolate, milk), result);
+    }
 }
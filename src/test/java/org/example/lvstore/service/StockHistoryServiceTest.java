@@ -0,0 +1,131 @@
+package org.example.lvstore.service;
+
+import org.example.lvstore.config.DatabasePlatform;
+import org.example.lvstore.entity.StockSnapshot;
+import org.example.lvstore.payload.stock.StockQuantity;
+import org.example.lvstore.repository.StockMovementRepository;
+import org.example.lvstore.repository.StockRepository;
+import org.example.lvstore.repository.StockSnapshotRepository;
+import org.example.lvstore.repository.StoreRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockHistoryServiceTest {
+
+    private static final LocalDateTime NINE = LocalDateTime.of(2026, 3, 2, 9, 0);
+
+    @Mock
+    private StockSnapshotRepository stockSnapshotRepository;
+    @Mock
+    private StockMovementRepository stockMovementRepository;
+    @Mock
+    private StockRepository stockRepository;
+    @Mock
+    private StoreRepository storeRepository;
+    @Mock
+    private DatabasePlatform databasePlatform;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private StockHistoryService stockHistoryService;
+
+    @BeforeEach
+    void setUp() {
+        stockHistoryService = new StockHistoryService(stockSnapshotRepository, stockMovementRepository, stockRepository,
+                storeRepository, databasePlatform, transactionManager, Duration.ofHours(1));
+    }
+
+    @Test
+    void stockAsOfReplaysMovementsAfterTheLatestSnapshot() {
+        LocalDateTime eight = NINE.minusHours(1);
+        when(stockSnapshotRepository.findLatestTakenAt(2L, NINE)).thenReturn(Optional.of(eight));
+        when(stockSnapshotRepository.findByStoreIdAndTakenAt(2L, eight)).thenReturn(List.of(
+                snapshot(1L, eight, 10), snapshot(3L, eight, 4)));
+        when(stockMovementRepository.findDeltas(2L, eight, NINE)).thenReturn(List.of(
+                new StockQuantity(1L, 2L, -3), new StockQuantity(3L, 2L, -4), new StockQuantity(5L, 2L, 6)));
+
+        assertEquals(List.of(new StockQuantity(1L, 2L, 7), new StockQuantity(5L, 2L, 6)),
+                stockHistoryService.getStockAsOf(2L, NINE));
+        verifyNoInteractions(stockRepository);
+    }
+
+    @Test
+    void stockAsOfBeforeTheFirstSnapshotRewindsTheCurrentStock() {
+        when(stockSnapshotRepository.findLatestTakenAt(2L, NINE)).thenReturn(Optional.empty());
+        when(stockRepository.findQuantitiesByStoreId(2L)).thenReturn(List.of(new StockQuantity(1L, 2L, 10)));
+        when(stockMovementRepository.findDeltasAfter(2L, NINE)).thenReturn(List.of(new StockQuantity(1L, 2L, -5)));
+
+        assertEquals(List.of(new StockQuantity(1L, 2L, 15)), stockHistoryService.getStockAsOf(2L, NINE));
+    }
+
+    @Test
+    void snapshotIsReplayedFromThePreviousOneUpToTheSettledTime() {
+        LocalDateTime eight = NINE.minusHours(1);
+        when(databasePlatform.isPostgres()).thenReturn(true);
+        when(stockMovementRepository.findSettledUntil()).thenReturn(NINE);
+        when(storeRepository.findAllIds()).thenReturn(List.of(2L));
+        when(stockSnapshotRepository.tryLock(anyInt(), eq(2L))).thenReturn(true);
+        when(stockSnapshotRepository.findLatestTakenAt(2L)).thenReturn(Optional.of(eight));
+        when(stockSnapshotRepository.findLatestTakenAt(2L, NINE)).thenReturn(Optional.of(eight));
+        when(stockSnapshotRepository.findByStoreIdAndTakenAt(2L, eight)).thenReturn(List.of(snapshot(1L, eight, 10)));
+        when(stockMovementRepository.findDeltas(2L, eight, NINE)).thenReturn(List.of(new StockQuantity(1L, 2L, -2)));
+
+        assertEquals(1, stockHistoryService.takeSnapshots());
+
+        verify(stockSnapshotRepository).saveAll(argThat((List<StockSnapshot> rows) -> rows.size() == 1
+                && rows.get(0).getQuantity() == 8 && rows.get(0).getTakenAt().equals(NINE)));
+        verifyNoInteractions(stockRepository);
+    }
+
+    @Test
+    void storeIsSkippedWhileAnotherNodeSnapshotsIt() {
+        when(databasePlatform.isPostgres()).thenReturn(true);
+        when(stockMovementRepository.findSettledUntil()).thenReturn(NINE);
+        when(storeRepository.findAllIds()).thenReturn(List.of(2L));
+        when(stockSnapshotRepository.tryLock(anyInt(), eq(2L))).thenReturn(false);
+
+        assertEquals(0, stockHistoryService.takeSnapshots());
+
+        verify(stockSnapshotRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void storeIsSkippedWhenAnotherNodeJustSnapshottedIt() {
+        when(databasePlatform.isPostgres()).thenReturn(true);
+        when(stockMovementRepository.findSettledUntil()).thenReturn(NINE);
+        when(storeRepository.findAllIds()).thenReturn(List.of(2L));
+        when(stockSnapshotRepository.tryLock(anyInt(), eq(2L))).thenReturn(true);
+        when(stockSnapshotRepository.findLatestTakenAt(2L)).thenReturn(Optional.of(NINE.minusMinutes(5)));
+
+        assertEquals(0, stockHistoryService.takeSnapshots());
+
+        verify(stockSnapshotRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void snapshotsAreNotTakenOutsidePostgres() {
+        when(databasePlatform.isPostgres()).thenReturn(false);
+
+        assertEquals(0, stockHistoryService.takeSnapshots());
+
+        verifyNoInteractions(stockMovementRepository, storeRepository, stockSnapshotRepository);
+    }
+
+    private static StockSnapshot snapshot(Long productId, LocalDateTime takenAt, int quantity) {
+        return StockSnapshot.builder().storeId(2L).productId(productId).takenAt(takenAt).quantity(quantity).build();
+    }
+}
@@ -2,19 +2,32 @@ package org.example.lvstore.service;
 
 import org.example.lvstore.entity.Product;
 import org.example.lvstore.entity.Stock;
+import org.example.lvstore.entity.StockMovement;
 import org.example.lvstore.entity.Store;
+import org.example.lvstore.payload.page.CursorPage;
 import org.example.lvstore.payload.stock.CreateStockRequest;
+import org.example.lvstore.payload.stock.StockQuantity;
+import org.example.lvstore.payload.stock.StockView;
 import org.example.lvstore.payload.stock.UpdateStockRequest;
+import org.example.lvstore.repository.OrderLineRepository;
+import org.example.lvstore.repository.StockMovementRepository;
 import org.example.lvstore.repository.StockRepository;
+import org.example.lvstore.service.enums.StockMovementReason;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,6 +38,12 @@ public class StockServiceTest {
     @Mock
     private StockRepository stockRepository;
 
+    @Mock
+    private OrderLineRepository orderLineRepository;
+
+    @Mock
+    private StockMovementRepository stockMovementRepository;
+
     @Mock
     private ProductService productService;
 
@@ -59,6 +78,8 @@ public class StockServiceTest {
         assertEquals(store, result.getStore());
         assertEquals(100, result.getQuantity());
         verify(stockRepository, times(1)).save(any(Stock.class));
+        verify(stockMovementRepository).saveAll(argThat((List<StockMovement> movements) -> movements.size() == 1
+                && movements.get(0).getDelta() == 100 && movements.get(0).getReason() == StockMovementReason.CREATED));
     }
 
     @Test
@@ -84,13 +105,13 @@ public class StockServiceTest {
 
     @Test
     void testGetAllStocks() {
-        Stock s1 = new Stock();
-        Stock s2 = new Stock();
-        when(stockRepository.findAll()).thenReturn(List.of(s1, s2));
+        StockView s1 = new StockView(null, 1L, "Product", "123", 2L, "Store", 10, 5, 0L);
+        StockView s2 = new StockView(null, 1L, "Product", "123", 2L, "Store", 10, 5, 0L);
+        when(stockRepository.findViewsAfter(0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1))).thenReturn(List.of(s1, s2));
 
-        List<Stock> result = stockService.getAllStocks();
-        assertEquals(2, result.size());
-        verify(stockRepository, times(1)).findAll();
+        CursorPage<StockView> result = stockService.getStocks(null, null);
+        assertEquals(2, result.items().size());
+        verify(stockRepository, times(1)).findViewsAfter(0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1));
     }
 
     @Test
@@ -100,11 +121,15 @@ public class StockServiceTest {
         Store newStore = new Store();
         newStore.setId(20L);
 
+        Product oldProduct = new Product();
+        oldProduct.setId(11L);
         Stock existing = new Stock();
         existing.setId(1L);
         existing.setQuantity(50);
+        existing.setProduct(oldProduct);
+        existing.setStore(newStore);
 
-        UpdateStockRequest request = new UpdateStockRequest(1L, 10L, 20L, 200, 30);
+        UpdateStockRequest request = new UpdateStockRequest(1L, 10L, 20L, 200, 30, null);
 
         when(stockRepository.findById(1L)).thenReturn(Optional.of(existing));
         when(productService.getProductById(10L)).thenReturn(newProduct);
@@ -118,11 +143,15 @@ public class StockServiceTest {
         assertEquals(200, updated.getQuantity());
         verify(stockRepository, times(1)).findById(1L);
         verify(stockRepository, times(1)).save(existing);
+        // the row moved to another product: 50 leave the old one, 200 arrive at the new one
+        verify(stockMovementRepository).saveAll(argThat((List<StockMovement> movements) -> movements.size() == 2
+                && movements.get(0).getProductId() == 11L && movements.get(0).getDelta() == -50
+                && movements.get(1).getProductId() == 10L && movements.get(1).getDelta() == 200));
     }
 
     @Test
     void testUpdateStock_NotFound() {
-        UpdateStockRequest request = new UpdateStockRequest(123L, 1L, 1L, 10, 10);
+        UpdateStockRequest request = new UpdateStockRequest(123L, 1L, 1L, 10, 10, null);
         when(stockRepository.findById(123L)).thenReturn(Optional.empty());
 
         assertThrows(NoSuchElementException.class, () -> stockService.updateStock(request));
@@ -130,69 +159,150 @@ public class StockServiceTest {
         verify(stockRepository, never()).save(any());
     }
 
+    @Test
+    void testUpdateStock_StaleVersion() {
+        Stock existing = Stock.builder().id(1L).quantity(50).version(3L).build();
+        UpdateStockRequest request = new UpdateStockRequest(1L, 10L, 20L, 200, 30, 2L);
+        when(stockRepository.findById(1L)).thenReturn(Optional.of(existing));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> stockService.updateStock(request));
+        verify(stockRepository, never()).save(any());
+    }
+
     @Test
     void testDeleteStock() {
-        doNothing().when(stockRepository).deleteById(5L);
+        Stock stock = Stock.builder().id(5L).product(Product.builder().id(1L).build())
+                .store(Store.builder().id(2L).build()).quantity(7).build();
+        when(stockRepository.findById(5L)).thenReturn(Optional.of(stock));
+
         stockService.deleteStock(5L);
-        verify(stockRepository, times(1)).deleteById(5L);
+
+        verify(stockRepository, times(1)).delete(stock);
+        verify(stockMovementRepository).saveAll(argThat((List<StockMovement> movements) ->
+                movements.get(0).getDelta() == -7 && movements.get(0).getReason() == StockMovementReason.DELETED));
     }
 
     @Test
     void testGetStocksByStoreId() {
-        Stock s1 = new Stock();
-        Stock s2 = new Stock();
-        when(stockRepository.findByStoreId(1L)).thenReturn(List.of(s1, s2));
+        StockView s1 = new StockView(null, 1L, "Product", "123", 2L, "Store", 10, 5, 0L);
+        StockView s2 = new StockView(null, 1L, "Product", "123", 2L, "Store", 10, 5, 0L);
+        when(stockRepository.findViewsByStoreIdAfter(1L, 0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1))).thenReturn(List.of(s1, s2));
 
-        List<Stock> result = stockService.getStocksByStoreId(1L);
-        assertEquals(2, result.size());
-        verify(stockRepository, times(1)).findByStoreId(1L);
+        CursorPage<StockView> result = stockService.getStocksByStoreId(1L, null, null);
+        assertEquals(2, result.items().size());
+        verify(stockRepository, times(1)).findViewsByStoreIdAfter(1L, 0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1));
     }
 
     @Test
     void testGetStocksByProductId() {
-        Stock s1 = new Stock();
-        when(stockRepository.findByProductId(99L)).thenReturn(List.of(s1));
+        StockView s1 = new StockView(null, 1L, "Product", "123", 2L, "Store", 10, 5, 0L);
+        when(stockRepository.findViewsByProductIdAfter(99L, 0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1))).thenReturn(List.of(s1));
 
-        List<Stock> result = stockService.getStocksByProductId(99L);
-        assertEquals(1, result.size());
-        verify(stockRepository, times(1)).findByProductId(99L);
+        CursorPage<StockView> result = stockService.getStocksByProductId(99L, null, null);
+        assertEquals(1, result.items().size());
+        verify(stockRepository, times(1)).findViewsByProductIdAfter(99L, 0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1));
     }
 
     @Test
     void testGetCriticalStocksByStoreId() {
-        Long storeId = 1L;
+        StockView critical = new StockView(1L, 10L, "Product", "123", 1L, "Store", 5, 10, 0L);
+        when(stockRepository.findCriticalViewsByStoreIdAfter(1L, 0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1))).thenReturn(List.of(critical));
 
-        Store store = new Store();
-        store.setId(storeId);
+        CursorPage<StockView> result = stockService.getCriticalStocksByStoreId(1L, null, null);
 
-        Product product = new Product();
-        product.setId(10L);
+        assertEquals(List.of(critical), result.items());
+        assertFalse(result.hasMore());
+        verify(stockRepository, times(1)).findCriticalViewsByStoreIdAfter(1L, 0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1));
+    }
 
-        Stock criticalStock = Stock.builder()
-                .id(1L)
-                .store(store)
-                .product(product)
-                .quantity(5)
-                .minQuantity(10)
-                .build();
+    @Test
+    void testGetCriticalStocks() {
+        StockView s1 = new StockView(1L, 10L, "Product", "123", 1L, "Store", 5, 10, 0L);
+        StockView s2 = new StockView(2L, 10L, "Product", "123", 2L, "Store", 0, 3, 0L);
+        when(stockRepository.findCriticalViewsAfter(0L, Limit.of(2))).thenReturn(List.of(s1, s2));
 
-        Stock nonCriticalStock = Stock.builder()
-                .id(2L)
-                .store(store)
-                .product(product)
-                .quantity(20)
-                .minQuantity(10)
-                .build();
+        CursorPage<StockView> result = stockService.getCriticalStocks(null, 1);
+
+        assertEquals(List.of(s1), result.items());
+        assertEquals(1L, result.nextCursor());
+        assertTrue(result.hasMore());
+    }
+
+    @Test
+    void testDecreaseStock_Success() {
+        when(stockRepository.decreaseQuantity(1L, 2L, 5)).thenReturn(1);
+
+        assertTrue(stockService.decreaseStock(1L, 2L, 5));
+        verify(stockRepository, never()).existsByProductIdAndStoreId(any(), any());
+        verify(stockMovementRepository).saveAll(argThat((List<StockMovement> movements) ->
+                movements.get(0).getDelta() == -5 && movements.get(0).getReason() == StockMovementReason.ORDER_SHIPPED));
+    }
 
-        when(stockRepository.findByStoreId(storeId)).thenReturn(List.of(criticalStock, nonCriticalStock));
+    @Test
+    void testDecreaseStock_NotEnoughQuantity() {
+        when(stockRepository.decreaseQuantity(1L, 2L, 5)).thenReturn(0);
+        when(stockRepository.existsByProductIdAndStoreId(1L, 2L)).thenReturn(true);
 
-        List<Stock> result = stockService.getCriticalStocksByStoreId(storeId);
+        assertFalse(stockService.decreaseStock(1L, 2L, 5));
+        verifyNoInteractions(stockMovementRepository);
+    }
+
+    @Test
+    void testDecreaseStock_NotFound() {
+        when(stockRepository.decreaseQuantity(1L, 2L, 5)).thenReturn(0);
+        when(stockRepository.existsByProductIdAndStoreId(1L, 2L)).thenReturn(false);
+
+        assertThrows(NoSuchElementException.class, () -> stockService.decreaseStock(1L, 2L, 5));
+    }
+
+    @Test
+    void testDecreaseStockForOrder_AllProductsTaken() {
+        when(orderLineRepository.countProductsByOrderId(7L)).thenReturn(3L);
+        when(stockRepository.decreaseQuantitiesForOrder(7L, 2L)).thenReturn(3);
+
+        assertTrue(stockService.decreaseStockForOrder(7L, 2L));
+    }
 
-        assertEquals(1, result.size());
-        assertTrue(result.contains(criticalStock));
-        assertFalse(result.contains(nonCriticalStock));
+    @Test
+    void testDecreaseStockForOrder_ProductShort() {
+        when(orderLineRepository.countProductsByOrderId(7L)).thenReturn(3L);
+        when(stockRepository.decreaseQuantitiesForOrder(7L, 2L)).thenReturn(2);
+
+        assertFalse(stockService.decreaseStockForOrder(7L, 2L));
+    }
+
+    @Test
+    void testDecreaseStockForOrders_ServesOrdersWhileStockLasts() {
+        when(stockRepository.findQuantitiesForUpdate(Set.of(1L, 3L), Set.of(2L))).thenReturn(List.of(
+                new StockQuantity(1L, 2L, 10), new StockQuantity(3L, 2L, 1)));
+        Map<Long, List<StockQuantity>> demands = new LinkedHashMap<>();
+        demands.put(5L, List.of(new StockQuantity(1L, 2L, 4)));
+        demands.put(6L, List.of(new StockQuantity(1L, 2L, 4), new StockQuantity(3L, 2L, 2)));
+        demands.put(7L, List.of(new StockQuantity(1L, 2L, 6)));
+        demands.put(8L, List.of(new StockQuantity(1L, 2L, 2)));
+        when(stockRepository.decreaseQuantity(1L, 2L, 10)).thenReturn(1);
+
+        assertEquals(Set.of(6L, 8L), stockService.decreaseStockForOrders(demands));
+        verify(stockRepository).decreaseQuantity(1L, 2L, 10);
+        verifyNoMoreInteractions(stockRepository);
+        verify(stockMovementRepository).saveAll(argThat((List<StockMovement> movements) ->
+                movements.size() == 1 && movements.get(0).getDelta() == -10));
+    }
+
+    @Test
+    void testDecreaseStockForOrders_FailsWhenStockChangedConcurrently() {
+        when(stockRepository.findQuantitiesForUpdate(Set.of(1L), Set.of(2L))).thenReturn(List.of(new StockQuantity(1L, 2L, 10)));
+        when(stockRepository.decreaseQuantity(1L, 2L, 4)).thenReturn(0);
+
+        assertThrows(ConcurrencyFailureException.class,
+                () -> stockService.decreaseStockForOrders(Map.of(5L, List.of(new StockQuantity(1L, 2L, 4)))));
+    }
+
+    @Test
+    void testIncreaseStock_NotFound() {
+        when(stockRepository.increaseQuantity(1L, 2L, 5)).thenReturn(0);
 
-        verify(stockRepository, times(1)).findByStoreId(storeId);
+        assertThrows(NoSuchElementException.class, () -> stockService.increaseStock(1L, 2L, 5));
     }
 
 }
@@ -2,14 +2,18 @@ package org.example.lvstore.service;
 
 import org.example.lvstore.entity.Store;
 import org.example.lvstore.entity.User;
+import org.example.lvstore.payload.page.CursorPage;
 import org.example.lvstore.payload.store.CreateStoreRequest;
 import org.example.lvstore.payload.store.UpdateStoreRequest;
+import org.example.lvstore.repository.StockMovementRepository;
 import org.example.lvstore.repository.StoreRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -27,6 +31,9 @@ public class StoreServiceTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private StockMovementRepository stockMovementRepository;
+
     @InjectMocks
     private StoreService storeService;
 
@@ -81,11 +88,11 @@ public class StoreServiceTest {
     void testGetAllStores() {
         Store s1 = new Store();
         Store s2 = new Store();
-        when(storeRepository.findAll()).thenReturn(List.of(s1, s2));
+        when(storeRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1))).thenReturn(List.of(s1, s2));
 
-        List<Store> result = storeService.getAllStores();
-        assertEquals(2, result.size());
-        verify(storeRepository, times(1)).findAll();
+        CursorPage<Store> result = storeService.getStores(null, null);
+        assertEquals(2, result.items().size());
+        verify(storeRepository, times(1)).findByIdGreaterThanOrderByIdAsc(0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1));
     }
 
     @Test
@@ -127,6 +134,8 @@ public class StoreServiceTest {
     void testDeleteStore_Success() {
         doNothing().when(storeRepository).deleteById(10L);
         storeService.deleteStore(10L);
-        verify(storeRepository, times(1)).deleteById(10L);
+        InOrder inOrder = inOrder(stockMovementRepository, storeRepository);
+        inOrder.verify(stockMovementRepository).recordStoreRemoval(10L);
+        inOrder.verify(storeRepository).deleteById(10L);
     }
 }
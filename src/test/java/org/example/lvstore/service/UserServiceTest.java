@@ -1,6 +1,7 @@
 package org.example.lvstore.service;
 
 import org.example.lvstore.entity.User;
+import org.example.lvstore.payload.page.CursorPage;
 import org.example.lvstore.payload.user.CreateUserRequest;
 import org.example.lvstore.payload.user.UpdateUserRequest;
 import org.example.lvstore.repository.UserRepository;
@@ -10,6 +11,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -115,11 +117,11 @@ public class UserServiceTest {
     void testGetAllUsers_Success() {
         User u1 = new User();
         User u2 = new User();
-        when(userRepository.findAll()).thenReturn(List.of(u1, u2));
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1))).thenReturn(List.of(u1, u2));
 
-        List<User> users = userService.getAllUsers();
-        assertEquals(2, users.size());
-        verify(userRepository, times(1)).findAll();
+        CursorPage<User> users = userService.getUsers(null, null);
+        assertEquals(2, users.items().size());
+        verify(userRepository, times(1)).findByIdGreaterThanOrderByIdAsc(0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1));
     }
 
     @Test
@@ -2,6 +2,7 @@ package org.example.lvstore.service;
 
 import org.example.lvstore.entity.User;
 import org.example.lvstore.entity.Warehouse;
+import org.example.lvstore.payload.page.CursorPage;
 import org.example.lvstore.payload.warehouse.CreateWarehouseRequest;
 import org.example.lvstore.payload.warehouse.UpdateWarehouseRequest;
 import org.example.lvstore.repository.WarehouseRepository;
@@ -10,6 +11,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -82,11 +84,11 @@ public class WarehouseServiceTest {
     void testGetAllWarehouses() {
         Warehouse w1 = new Warehouse();
         Warehouse w2 = new Warehouse();
-        when(warehouseRepository.findAll()).thenReturn(List.of(w1, w2));
+        when(warehouseRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1))).thenReturn(List.of(w1, w2));
 
-        List<Warehouse> result = warehouseService.getAllWarehouses();
-        assertEquals(2, result.size());
-        verify(warehouseRepository, times(1)).findAll();
+        CursorPage<Warehouse> result = warehouseService.getWarehouses(null, null);
+        assertEquals(2, result.items().size());
+        verify(warehouseRepository, times(1)).findByIdGreaterThanOrderByIdAsc(0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1));
     }
 
     @Test
@@ -3,14 +3,17 @@ package org.example.lvstore.service;
 import org.example.lvstore.entity.Product;
 import org.example.lvstore.entity.Warehouse;
 import org.example.lvstore.entity.WarehouseStock;
+import org.example.lvstore.payload.page.CursorPage;
 import org.example.lvstore.payload.warehousestock.CreateWarehouseStockRequest;
 import org.example.lvstore.payload.warehousestock.UpdateWarehouseStockRequest;
+import org.example.lvstore.payload.warehousestock.WarehouseStockView;
 import org.example.lvstore.repository.WarehouseStockRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -89,20 +92,20 @@ public class WarehouseStockServiceTest {
 
     @Test
     void testGetAllWarehouseStocks() {
-        WarehouseStock ws1 = new WarehouseStock();
-        WarehouseStock ws2 = new WarehouseStock();
+        WarehouseStockView ws1 = new WarehouseStockView(null, 1L, "Warehouse", 2L, "Product", 10, 0L);
+        WarehouseStockView ws2 = new WarehouseStockView(null, 1L, "Warehouse", 2L, "Product", 10, 0L);
 
-        when(warehouseStockRepository.findAll()).thenReturn(List.of(ws1, ws2));
+        when(warehouseStockRepository.findViewsAfter(0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1))).thenReturn(List.of(ws1, ws2));
 
-        List<WarehouseStock> result = warehouseStockService.getAllWarehouseStocks();
+        CursorPage<WarehouseStockView> result = warehouseStockService.getWarehouseStocks(null, null);
 
-        assertEquals(2, result.size());
-        verify(warehouseStockRepository, times(1)).findAll();
+        assertEquals(2, result.items().size());
+        verify(warehouseStockRepository, times(1)).findViewsAfter(0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1));
     }
 
     @Test
     void testUpdateWarehouseStock_Success() {
-        UpdateWarehouseStockRequest request = new UpdateWarehouseStockRequest(1L, 2L, 3L, 200);
+        UpdateWarehouseStockRequest request = new UpdateWarehouseStockRequest(1L, 2L, 3L, 200, null);
 
         WarehouseStock existingStock = new WarehouseStock();
         existingStock.setId(1L);
@@ -130,7 +133,7 @@ public class WarehouseStockServiceTest {
 
     @Test
     void testUpdateWarehouseStock_NotFound() {
-        UpdateWarehouseStockRequest request = new UpdateWarehouseStockRequest(999L, 1L, 1L, 100);
+        UpdateWarehouseStockRequest request = new UpdateWarehouseStockRequest(999L, 1L, 1L, 100, null);
 
         when(warehouseStockRepository.findById(999L)).thenReturn(Optional.empty());
 
@@ -141,27 +144,27 @@ public class WarehouseStockServiceTest {
 
     @Test
     void testGetWarehouseStocksByWarehouseId() {
-        WarehouseStock stock1 = new WarehouseStock();
-        WarehouseStock stock2 = new WarehouseStock();
+        WarehouseStockView stock1 = new WarehouseStockView(null, 1L, "Warehouse", 2L, "Product", 10, 0L);
+        WarehouseStockView stock2 = new WarehouseStockView(null, 1L, "Warehouse", 2L, "Product", 10, 0L);
 
-        when(warehouseStockRepository.findByWarehouseId(1L)).thenReturn(List.of(stock1, stock2));
+        when(warehouseStockRepository.findViewsByWarehouseIdAfter(1L, 0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1))).thenReturn(List.of(stock1, stock2));
 
-        List<WarehouseStock> result = warehouseStockService.getWarehouseStocksByWarehouseId(1L);
+        CursorPage<WarehouseStockView> result = warehouseStockService.getWarehouseStocksByWarehouseId(1L, null, null);
 
-        assertEquals(2, result.size());
-        verify(warehouseStockRepository, times(1)).findByWarehouseId(1L);
+        assertEquals(2, result.items().size());
+        verify(warehouseStockRepository, times(1)).findViewsByWarehouseIdAfter(1L, 0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1));
     }
 
     @Test
     void testGetWarehouseStocksByProductId() {
-        WarehouseStock stock1 = new WarehouseStock();
+        WarehouseStockView stock1 = new WarehouseStockView(null, 1L, "Warehouse", 2L, "Product", 10, 0L);
 
-        when(warehouseStockRepository.findByProductId(2L)).thenReturn(List.of(stock1));
+        when(warehouseStockRepository.findViewsByProductIdAfter(2L, 0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1))).thenReturn(List.of(stock1));
 
-        List<WarehouseStock> result = warehouseStockService.getWarehouseStocksByProductId(2L);
+        CursorPage<WarehouseStockView> result = warehouseStockService.getWarehouseStocksByProductId(2L, null, null);
 
-        assertEquals(1, result.size());
-        verify(warehouseStockRepository, times(1)).findByProductId(2L);
+        assertEquals(1, result.items().size());
+        verify(warehouseStockRepository, times(1)).findViewsByProductIdAfter(2L, 0L, Limit.of(CursorPage.DEFAULT_LIMIT + 1));
     }
 
     @Test
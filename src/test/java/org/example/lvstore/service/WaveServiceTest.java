@@ -0,0 +1,101 @@
+package org.example.lvstore.service;
+
+import org.example.lvstore.payload.order.OrderTransitionResult;
+import org.example.lvstore.payload.order.OrderWave;
+import org.example.lvstore.payload.order.PickListLine;
+import org.example.lvstore.repository.OrderLineRepository;
+import org.example.lvstore.repository.OrderRepository;
+import org.example.lvstore.service.enums.OrderStatus;
+import org.example.lvstore.service.enums.OrderTransition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class WaveServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private OrderLineRepository orderLineRepository;
+    @Mock
+    private OrderService orderService;
+
+    private WaveService waveService;
+
+    @BeforeEach
+    void setUp() {
+        waveService = new WaveService(orderRepository, orderLineRepository, orderService, 100);
+    }
+
+    @Test
+    void planWave_mergesSingleProductOrdersAndLinesPerProductAndStore() {
+        List<Long> ids = List.of(1L, 2L, 3L);
+        when(orderRepository.findIdsByStatusAfter(OrderStatus.CONFIRMED, 0L, Limit.of(100))).thenReturn(ids);
+        when(orderRepository.findPickListByIds(ids)).thenReturn(List.of(
+                new PickListLine(10L, "Milk", 20L, 5L, 2L)));
+        when(orderLineRepository.findPickListByOrderIds(ids)).thenReturn(List.of(
+                new PickListLine(11L, "Bread", 20L, 1L, 1L),
+                new PickListLine(10L, "Milk", 20L, 3L, 1L)));
+
+        OrderWave wave = waveService.planWave(null, null, null);
+
+        assertEquals(ids, wave.orderIds());
+        assertEquals(List.of(new PickListLine(11L, "Bread", 20L, 1L, 1L), new PickListLine(10L, "Milk", 20L, 8L, 3L)),
+                wave.pickList());
+    }
+
+    @Test
+    void planWave_capsSizeAndFiltersByStore() {
+        when(orderRepository.findIdsByStoreIdAndStatusAfter(20L, OrderStatus.CONFIRMED, 7L, Limit.of(100))).thenReturn(List.of());
+
+        OrderWave wave = waveService.planWave(20L, 7L, 1000);
+
+        assertTrue(wave.orderIds().isEmpty());
+        verifyNoInteractions(orderLineRepository);
+    }
+
+    @Test
+    void shipWave_shipsThePlannedOrdersInOneBatch() {
+        List<Long> ids = List.of(1L, 2L);
+        List<OrderTransitionResult> results = List.of(
+                OrderTransitionResult.succeeded(1L, OrderStatus.SHIPPED),
+                OrderTransitionResult.succeeded(2L, OrderStatus.SHIPPED));
+        when(orderRepository.findIdsByStatusAfter(OrderStatus.CONFIRMED, 0L, Limit.of(50))).thenReturn(ids);
+        when(orderService.transitionOrders(OrderTransition.SHIP, ids)).thenReturn(results);
+
+        assertEquals(results, waveService.shipWave(null, null, 50));
+    }
+
+    @Test
+    void shipWave_movesPastAnUnderstockedHeadOrder() {
+        when(orderRepository.findIdsByStatusAfter(OrderStatus.CONFIRMED, 0L, Limit.of(2))).thenReturn(List.of(1L, 2L));
+        when(orderService.transitionOrders(OrderTransition.SHIP, List.of(1L, 2L))).thenReturn(List.of(
+                OrderTransitionResult.failed(1L, "Not enough stock to ship order"),
+                OrderTransitionResult.succeeded(2L, OrderStatus.SHIPPED)));
+        when(orderRepository.findIdsByStatusAfter(OrderStatus.CONFIRMED, 2L, Limit.of(2))).thenReturn(List.of(3L));
+        when(orderService.transitionOrders(OrderTransition.SHIP, List.of(3L))).thenReturn(List.of(
+                OrderTransitionResult.succeeded(3L, OrderStatus.SHIPPED)));
+
+        List<OrderTransitionResult> first = waveService.shipWave(null, null, 2);
+        Long after = first.get(first.size() - 1).orderId();
+        List<OrderTransitionResult> second = waveService.shipWave(null, after, 2);
+
+        assertEquals(List.of(OrderTransitionResult.succeeded(3L, OrderStatus.SHIPPED)), second);
+        verify(orderService, times(1)).transitionOrders(OrderTransition.SHIP, List.of(1L, 2L));
+    }
+
+    @Test
+    void rejectsWaveLargerThanABatch() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new WaveService(orderRepository, orderLineRepository, orderService, OrderService.MAX_BATCH_SIZE + 1));
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.lvstore.service.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.example.lvstore.entity.Order;
+import org.example.lvstore.entity.Product;
+import org.example.lvstore.payload.order.OrderExportRow;
+import org.example.lvstore.payload.order.OrderLineView;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NdjsonExporterTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Test
+    void testWrite_OneJsonObjectPerLine() throws Exception {
+        NdjsonExporter exporter = new NdjsonExporter(entityManager, new ObjectMapper());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = exporter.write(Stream.of(
+                Product.builder().id(1L).name("Milk").build(),
+                Product.builder().id(2L).name("Bread").build()), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(2, written);
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,"));
+        assertTrue(lines[1].startsWith("{\"id\":2,"));
+        assertEquals("", lines[2]);
+        verify(entityManager, never()).clear();
+    }
+
+    @Test
+    void testWrite_ClearsPersistenceContextInBatches() throws Exception {
+        NdjsonExporter exporter = new NdjsonExporter(entityManager, new ObjectMapper());
+        Stream<Product> rows = LongStream.rangeClosed(1, NdjsonExporter.CLEAR_INTERVAL * 2L + 1)
+                .mapToObj(id -> Product.builder().id(id).build());
+
+        long written = exporter.write(rows, new ByteArrayOutputStream());
+
+        assertEquals(NdjsonExporter.CLEAR_INTERVAL * 2L + 1, written);
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    void testWrite_MapsRowsInBatches() throws Exception {
+        NdjsonExporter exporter = new NdjsonExporter(entityManager, new ObjectMapper());
+        Stream<Product> rows = LongStream.rangeClosed(1, NdjsonExporter.CLEAR_INTERVAL * 2L + 1)
+                .mapToObj(id -> Product.builder().id(id).build());
+        List<Integer> batchSizes = new ArrayList<>();
+
+        long written = exporter.write(rows, batch -> {
+            batchSizes.add(batch.size());
+            return batch.stream().map(Product::getId).toList();
+        }, new ByteArrayOutputStream());
+
+        assertEquals(NdjsonExporter.CLEAR_INTERVAL * 2L + 1, written);
+        assertEquals(List.of(NdjsonExporter.CLEAR_INTERVAL, NdjsonExporter.CLEAR_INTERVAL, 1), batchSizes);
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    void testWrite_OrderExportRowKeepsOrderFieldsAndAddsLines() throws Exception {
+        NdjsonExporter exporter = new NdjsonExporter(entityManager, new ObjectMapper());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exporter.write(Stream.of(new OrderExportRow(Order.builder().id(1L).version(0L).build(),
+                List.of(new OrderLineView(5L, 10L, "Milk", 3)))), out);
+
+        String line = out.toString(StandardCharsets.UTF_8);
+        assertTrue(line.startsWith("{\"id\":1,"));
+        assertTrue(line.contains("\"version\":0"));
+        assertTrue(line.endsWith("\"lines\":[{\"id\":5,\"productId\":10,\"productName\":\"Milk\",\"quantity\":3}]}\n"));
+    }
+}
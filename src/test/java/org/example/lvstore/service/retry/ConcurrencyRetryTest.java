@@ -0,0 +1,55 @@
+package org.example.lvstore.service.retry;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyRetryTest {
+
+    private final ConcurrencyRetry concurrencyRetry = new ConcurrencyRetry(3, Duration.ZERO);
+
+    @Test
+    void testExecute_RetriesUntilSuccess() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = concurrencyRetry.execute(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new ObjectOptimisticLockingFailureException(Object.class, 1L);
+            }
+            if (attempts.get() == 2) {
+                throw new CannotAcquireLockException("deadlock detected");
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void testExecute_GivesUpAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(CannotAcquireLockException.class, () -> concurrencyRetry.execute(() -> {
+            attempts.incrementAndGet();
+            throw new CannotAcquireLockException("deadlock detected");
+        }));
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void testExecute_DoesNotRetryOtherFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> concurrencyRetry.execute(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("Only CONFIRMED orders can be shipped");
+        }));
+        assertEquals(1, attempts.get());
+    }
+}
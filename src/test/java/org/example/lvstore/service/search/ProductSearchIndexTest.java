@@ -0,0 +1,91 @@
+package org.example.lvstore.service.search;
+
+import org.example.lvstore.entity.Product;
+import org.example.lvstore.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSearchIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private ProductSearchIndex productSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        productSearchIndex.index(product(1L, "Молоко пастеризоване", "Молочні продукти", "2,5% жирності"));
+        productSearchIndex.index(product(2L, "Chocolate", "Sweets", "Milk chocolate bar"));
+        productSearchIndex.index(product(3L, "Milk", "Dairy", "Fresh whole milk"));
+        productSearchIndex.index(product(4L, "Milkshake", "Drinks", null));
+    }
+
+    @Test
+    void testSearch_RanksNameAboveDescriptionAndExactAbovePrefix() {
+        assertEquals(List.of(3L, 4L, 2L), productSearchIndex.search("milk", null));
+    }
+
+    @Test
+    void testSearch_RequiresEveryToken() {
+        assertEquals(List.of(2L), productSearchIndex.search("milk choc", null));
+        assertEquals(List.of(), productSearchIndex.search("milk tea", null));
+    }
+
+    @Test
+    void testSearch_MatchesCyrillicPrefixesCaseInsensitively() {
+        assertEquals(List.of(1L), productSearchIndex.search("МОЛОК", null));
+    }
+
+    @Test
+    void testIndex_ReplacesPreviousTerms() {
+        productSearchIndex.index(product(4L, "Smoothie", "Drinks", null));
+
+        assertEquals(List.of(3L, 2L), productSearchIndex.search("milk", null));
+        assertEquals(List.of(4L), productSearchIndex.search("smooth", null));
+    }
+
+    @Test
+    void testRemove() {
+        productSearchIndex.remove(3L);
+
+        assertEquals(List.of(4L, 2L), productSearchIndex.search("milk", 10));
+        assertEquals(3, productSearchIndex.size());
+    }
+
+    @Test
+    void testRebuild_PagesThroughRepository() {
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(1000)))
+                .thenReturn(List.of(product(10L, "Bread", "Bakery", null)));
+
+        productSearchIndex.rebuild();
+
+        assertEquals(List.of(10L), productSearchIndex.search("bre", null));
+    }
+
+    @Test
+    void testRebuild_DropsProductsNoLongerInRepository() {
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(1000)))
+                .thenReturn(List.of(product(3L, "Milk", "Dairy", "Fresh whole milk")));
+
+        productSearchIndex.rebuild();
+
+        assertEquals(List.of(3L), productSearchIndex.search("milk", null));
+        assertEquals(1, productSearchIndex.size());
+    }
+
+    private static Product product(Long id, String name, String category, String description) {
+        return Product.builder().id(id).name(name).category(category).description(description).build();
+    }
+}
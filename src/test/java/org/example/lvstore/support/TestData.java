@@ -0,0 +1,147 @@
+package org.example.lvstore.support;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.lvstore.entity.Order;
+import org.example.lvstore.entity.OrderLine;
+import org.example.lvstore.entity.Product;
+import org.example.lvstore.entity.Stock;
+import org.example.lvstore.entity.StockMovement;
+import org.example.lvstore.entity.StockSnapshot;
+import org.example.lvstore.entity.Store;
+import org.example.lvstore.entity.User;
+import org.example.lvstore.entity.Warehouse;
+import org.example.lvstore.entity.WarehouseStock;
+import org.example.lvstore.service.enums.OrderStatus;
+import org.example.lvstore.service.enums.Role;
+import org.example.lvstore.service.enums.StockMovementReason;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Fixture factory for {@link PostgresJpaTest}s. Every method persists what it builds in the current
+ * transaction; {@link #committed} runs fixtures in a transaction of their own for tests that need other
+ * transactions to see them, which then clean up with {@link #deleteAll}.
+ */
+public class TestData {
+
+    private final EntityManager entityManager;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate transactionTemplate;
+
+    public TestData(EntityManager entityManager, EntityManagerFactory entityManagerFactory,
+                    PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public User user(String username, Role role) {
+        return persist(User.builder().username(username).email(username + "@store.com").role(role).build());
+    }
+
+    public Store store(String name) {
+        return store(name, null);
+    }
+
+    public Store store(String name, User admin) {
+        return persist(Store.builder().name(name).admin(admin).build());
+    }
+
+    public Warehouse warehouse(String name, User manager) {
+        return persist(Warehouse.builder().name(name).manager(manager).build());
+    }
+
+    /**
+     * A product priced 1.0 whose barcode is its lower-cased name.
+     */
+    public Product product(String name) {
+        return persist(Product.builder().name(name).barcode(name.toLowerCase(Locale.ROOT)).price(1.0).build());
+    }
+
+    public Stock stock(Product product, Store store, int quantity) {
+        return persist(Stock.builder().product(product).store(store).quantity(quantity).minQuantity(1).build());
+    }
+
+    public WarehouseStock warehouseStock(Product product, Warehouse warehouse, int quantity) {
+        return persist(WarehouseStock.builder().product(product).warehouse(warehouse).quantity(quantity).build());
+    }
+
+    /**
+     * An order created now by the store's admin; a {@code null} product and quantity make it a
+     * multi-line order.
+     */
+    public Order order(OrderStatus status, Store store, Product product, Integer quantity) {
+        return order(status, store, product, quantity, LocalDateTime.now());
+    }
+
+    public Order order(OrderStatus status, Store store, Product product, Integer quantity, LocalDateTime createdAt) {
+        return persist(Order.builder().status(status).store(store).product(product).quantity(quantity)
+                .createdAt(createdAt).createdBy(store.getAdmin()).build());
+    }
+
+    public OrderLine line(Order order, Product product, int quantity) {
+        return persist(OrderLine.builder().order(order).product(product).quantity(quantity).build());
+    }
+
+    public StockSnapshot snapshot(Store store, Product product, LocalDateTime takenAt, int quantity) {
+        return persist(StockSnapshot.builder().storeId(store.getId()).productId(product.getId())
+                .takenAt(takenAt).quantity(quantity).build());
+    }
+
+    /**
+     * A movement stamped {@code createdAt} instead of the time of the current transaction.
+     */
+    public StockMovement movement(Store store, Product product, int delta, LocalDateTime createdAt) {
+        StockMovement movement = persist(StockMovement.builder().storeId(store.getId()).productId(product.getId())
+                .delta(delta).reason(StockMovementReason.UPDATED).build());
+        entityManager.flush();
+        entityManager.createQuery("update StockMovement m set m.createdAt = :at where m.id = :id")
+                .setParameter("at", createdAt)
+                .setParameter("id", movement.getId())
+                .executeUpdate();
+        return movement;
+    }
+
+    public <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    public void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    public <T> T committed(Supplier<T> fixtures) {
+        return transactionTemplate.execute(tx -> fixtures.get());
+    }
+
+    /**
+     * Empties every table, for tests that committed their fixtures.
+     */
+    public void deleteAll() {
+        transactionTemplate.executeWithoutResult(tx -> {
+            @SuppressWarnings("unchecked")
+            List<String> tables = entityManager.createNativeQuery(
+                    "select quote_ident(tablename) from pg_tables where schemaname = current_schema()").getResultList();
+            entityManager.createNativeQuery("truncate " + String.join(", ", tables) + " cascade").executeUpdate();
+        });
+    }
+
+    /**
+     * Hibernate statistics, cleared.
+     */
+    public Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}